@@ -12,25 +12,27 @@
 
 package EmptyGame;
 
+import StrategySimulator.Library.PlayerCalls;
 import hu.hgj.improvedconfiguration.Configuration;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The implemented {@link StrategySimulator.Library.GameLogic}, with no added
  * functionality at all. Please see the parent's documentation!
  * @see StrategySimulator.Library.GameLogic
  */
-public class GameLogic extends StrategySimulator.Library.GameLogic {
+public class GameLogic extends StrategySimulator.Library.GameLogic<PlayerManager> {
 
 	/**
-	 * A new {@link Map} for the {@link PlayerManager}s, so you do not have to
-	 * cast the objects every time you want to use them.
+	 * Steps a player, for the {@link #playerCalls}.
 	 */
-	protected Map<Integer, PlayerManager> playerManagers = new HashMap<>();
+	protected final PlayerCalls.Call<PlayerManager> stepPlayer = new PlayerCalls.Call<PlayerManager>() {
+		@Override
+		public boolean call(PlayerManager playerManager) {
+			return playerManager.stepPlayer();
+		}
+	};
 
 	/**
 	 * Can do anything as a regular constructor, but should call the parent's
@@ -40,18 +42,15 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 	 * @param configuration The custom configuration coming from the game
 	 * configuration file.
 	 * @param players The list of {@link StrategySimulator.Library.PlayerManager}s,
-	 * also used by the parent {@link StrategySimulator.Library.GameLogic}.
-	 * @see StrategySimulator.Library.GameLogic#GameLogic(String,
-	 * java.util.List)
+	 * stored by the parent {@link StrategySimulator.Library.GameLogic} as
+	 * EmptyGame.PlayerManagers in its playerManagers array, so you do not
+	 * have to cast them every time you want to use them.
+	 * @see StrategySimulator.Library.GameLogic#GameLogic(Configuration,
+	 * java.util.List, Class)
 	 */
 	public GameLogic(Configuration configuration, List<StrategySimulator.Library.PlayerManager> players) {
-		super(configuration, players);
-		// Copy the references of the StrategySimulator.Library.PlayerManagers
-		// into the playerManagers Map, casted into EmptyGame.PlayerManagers.
-		for (Integer key : superPlayerManagers.keySet()) {
-			playerManagers.put(key, (PlayerManager) superPlayerManagers.get(key));
-		}
-		logger.debug("EmptyGame.GameLogic constructed. Stored a list of playerManagers.");
+		super(configuration, players, PlayerManager.class);
+		logger.debug("EmptyGame.GameLogic constructed.");
 	}
 
 	/**
@@ -115,18 +114,20 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 	/**
 	 * Should evaluate the current round. NOTE: The {@link PlayerManager}s are
 	 * NOT stepped by the {@link StrategySimulator.Library.GameLogic}, you have
-	 * to "step" them here!
+	 * to "step" them here! The players move simultaneously here, so they are
+	 * all stepped at once with the {@link #playerCalls} (in parallel, if the
+	 * 'game.parallelism' is set), and the round is resolved after all of
+	 * them, in the order of the players.
 	 * @return False, to stop the game.
 	 * @see StrategySimulator.Library.GameLogic#stepGame()
 	 */
 	@Override
 	protected boolean stepGame() {
-		boolean playersResult = true;
+		boolean playersResult = playerCalls.callAll(stepPlayer);
 
-		for (Iterator<PlayerManager> it = playerManagers.values().iterator(); it.hasNext() && playersResult; ) {
-			PlayerManager playerManager = it.next();
-			boolean playerResult = playerManager.stepPlayer();
-			playersResult &= playerResult;
+		for (int number = 1; number < playerManagers.length; number++) {
+			PlayerManager playerManager = playerManagers[number];
+			boolean playerResult = playerCalls.getResult(number);
 			if (playerResult) {
 				logger.debug("Stepping player {} was successful.", playerManager.getPlayerIdentity());
 			} else {
@@ -14,6 +14,8 @@ package EmptyGame;
 
 import hu.hgj.improvedconfiguration.Configuration;
 
+import java.util.concurrent.Callable;
+
 /**
  * Implementation of the {@link StrategySimulator.Library.PlayerManager}, with
  * no extra functionality at all.
@@ -51,7 +53,7 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 	 * @param superGameLogic The received GameLogic.
 	 */
 	@Override
-	public void setGameLogic(StrategySimulator.Library.GameLogic superGameLogic) {
+	public void setGameLogic(StrategySimulator.Library.GameLogic<?> superGameLogic) {
 		super.setGameLogic(superGameLogic);
 		gameLogic = (GameLogic) superGameLogic;
 	}
@@ -63,6 +65,13 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 	 */
 	protected boolean stepPlayer() {
 		logger.debug("Stepping the player.");
-		return player.step();
+		Boolean result = callPlayer(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return player.step();
+			}
+		});
+		// A timed out player fails its step
+		return result != null && result;
 	}
 }
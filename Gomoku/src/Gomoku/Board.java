@@ -0,0 +1,305 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import java.util.Arrays;
+
+/**
+ * Compact Gomoku board, storing the stones of the two players in one bitset
+ * (a long[]) per player. The cells are indexed row by row, starting from the
+ * bottom left corner: the index of the cell at x,y is y * width + x, and the
+ * bit of the cell is (index % 64) in the word (index / 64). The index scheme
+ * is stable, so it can be used to store and exchange moves and boards.
+ */
+public class Board {
+
+	public final int width;
+
+	public final int height;
+
+	/**
+	 * The stones of the players, indexed by the player number (1 or 2). The
+	 * first row is unused, so the player numbers can be used as they are.
+	 */
+	private final long[][] stones;
+
+	/**
+	 * The shift of the index when stepping along the four directions of the
+	 * board: right, up, up-right and up-left.
+	 */
+	private final int[] directionShifts;
+
+	/**
+	 * The cells, where a row of five can start in the given direction without
+	 * leaving the board, indexed by the direction.
+	 */
+	private final long[][] rowStarts;
+
+	/**
+	 * Scratch space for {@link #hasFive(int)}.
+	 */
+	private final long[] rows;
+
+	/**
+	 * Create an empty board.
+	 * @param width The width of the board.
+	 * @param height The height of the board.
+	 */
+	public Board(int width, int height) {
+		this.width = width;
+		this.height = height;
+		int words = (width * height + 63) >>> 6;
+		this.stones = new long[][]{null, new long[words], new long[words]};
+		this.directionShifts = new int[]{1, width, width + 1, width - 1};
+		this.rowStarts = new long[4][words];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int index = index(x, y);
+				long bit = 1L << index;
+				if (x + 4 < width) {
+					rowStarts[0][index >>> 6] |= bit;
+				}
+				if (y + 4 < height) {
+					rowStarts[1][index >>> 6] |= bit;
+					if (x + 4 < width) {
+						rowStarts[2][index >>> 6] |= bit;
+					}
+					if (x - 4 >= 0) {
+						rowStarts[3][index >>> 6] |= bit;
+					}
+				}
+			}
+		}
+		this.rows = new long[words];
+	}
+
+	public int getSize() {
+		return width * height;
+	}
+
+	public int index(int x, int y) {
+		return y * width + x;
+	}
+
+	public int getX(int index) {
+		return index % width;
+	}
+
+	public int getY(int index) {
+		return index / width;
+	}
+
+	public boolean isValidCoordinate(int x, int y) {
+		return (x >= 0 && x < width) && (y >= 0 && y < height);
+	}
+
+	/**
+	 * Get the owner of a cell.
+	 * @param index The index of the cell.
+	 * @return The number of the player (1 or 2) who has a stone on the cell,
+	 * or 0 if the cell is empty.
+	 */
+	public int get(int index) {
+		long bit = 1L << index;
+		int word = index >>> 6;
+		if ((stones[1][word] & bit) != 0) {
+			return 1;
+		} else if ((stones[2][word] & bit) != 0) {
+			return 2;
+		} else {
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the owner of a cell.
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return The number of the player (1 or 2) who has a stone on the cell,
+	 * or 0 if the cell is empty or is not on the board.
+	 */
+	public int get(int x, int y) {
+		return isValidCoordinate(x, y) ? get(index(x, y)) : 0;
+	}
+
+	/**
+	 * Check if the player has a stone on the cell.
+	 * @param player The number of the player (1 or 2).
+	 * @param index The index of the cell.
+	 * @return True if the player has a stone on the cell.
+	 */
+	public boolean has(int player, int index) {
+		return (stones[player][index >>> 6] & (1L << index)) != 0;
+	}
+
+	public boolean isEmpty(int index) {
+		int word = index >>> 6;
+		return ((stones[1][word] | stones[2][word]) & (1L << index)) == 0;
+	}
+
+	/**
+	 * Put a stone of the player on an empty cell.
+	 * @param index The index of the cell.
+	 * @param player The number of the player (1 or 2).
+	 */
+	public void set(int index, int player) {
+		stones[player][index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Remove the stone from the cell, whoever owns it.
+	 * @param index The index of the cell.
+	 */
+	public void remove(int index) {
+		long mask = ~(1L << index);
+		int word = index >>> 6;
+		stones[1][word] &= mask;
+		stones[2][word] &= mask;
+	}
+
+	/**
+	 * Remove all the stones from the board.
+	 */
+	public void clear() {
+		Arrays.fill(stones[1], 0);
+		Arrays.fill(stones[2], 0);
+	}
+
+	/**
+	 * Copy the stones of another board of the same size to this board.
+	 * @param other The board to copy.
+	 */
+	public void copyFrom(Board other) {
+		System.arraycopy(other.stones[1], 0, stones[1], 0, stones[1].length);
+		System.arraycopy(other.stones[2], 0, stones[2], 0, stones[2].length);
+	}
+
+	/**
+	 * Swap the stones of the two players.
+	 */
+	public void swapPlayers() {
+		long[] first = stones[1];
+		stones[1] = stones[2];
+		stones[2] = first;
+	}
+
+	/**
+	 * Check if the player has at least five stones in a row anywhere on the
+	 * board. This works on whole words of the bitset: a cell starts a row in
+	 * a direction if the cell and the next four cells in that direction are
+	 * all set, so the bitset is ANDed with itself shifted by one to four
+	 * steps, and masked to the cells where such a row fits on the board.
+	 * @param player The number of the player (1 or 2).
+	 * @return True if the player has five in a row.
+	 */
+	public boolean hasFive(int player) {
+		long[] bits = stones[player];
+		for (int direction = 0; direction < 4; direction++) {
+			long[] starts = rowStarts[direction];
+			for (int word = 0; word < bits.length; word++) {
+				rows[word] = bits[word] & starts[word];
+			}
+			for (int step = 1; step <= 4; step++) {
+				int shift = directionShifts[direction] * step;
+				int wordShift = shift >>> 6;
+				int bitShift = shift & 63;
+				for (int word = 0; word < bits.length; word++) {
+					int from = word + wordShift;
+					long shifted = from < bits.length ? bits[from] >>> bitShift : 0;
+					if (bitShift != 0 && from + 1 < bits.length) {
+						shifted |= bits[from + 1] << (64 - bitShift);
+					}
+					rows[word] &= shifted;
+				}
+			}
+			for (int word = 0; word < bits.length; word++) {
+				if (rows[word] != 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check if the stone on the cell is part of at least five stones of the
+	 * same player in a row. Only the four lines through the cell are
+	 * checked, so this is the way to check the last placed stone.
+	 * @param index The index of the cell.
+	 * @return True if the owner of the cell has five in a row through it.
+	 */
+	public boolean isFive(int index) {
+		int player = get(index);
+		if (player == 0) {
+			return false;
+		}
+		int x = getX(index);
+		int y = getY(index);
+		return countRow(player, x, y, 1, 0) >= 5
+				|| countRow(player, x, y, 0, 1) >= 5
+				|| countRow(player, x, y, 1, 1) >= 5
+				|| countRow(player, x, y, -1, 1) >= 5;
+	}
+
+	/**
+	 * Count the stones of the player in a row through the cell, in both
+	 * ways of the given direction. The cell itself is counted too.
+	 */
+	private int countRow(int player, int x, int y, int dx, int dy) {
+		int count = 1;
+		for (int cx = x + dx, cy = y + dy; count < 5 && isValidCoordinate(cx, cy) && has(player, index(cx, cy)); cx += dx, cy += dy) {
+			++count;
+		}
+		for (int cx = x - dx, cy = y - dy; count < 5 && isValidCoordinate(cx, cy) && has(player, index(cx, cy)); cx -= dx, cy -= dy) {
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Count the stones on the board.
+	 * @return The number of stones of both players.
+	 */
+	public int countStones() {
+		int count = 0;
+		for (int word = 0; word < stones[1].length; word++) {
+			count += Long.bitCount(stones[1][word]) + Long.bitCount(stones[2][word]);
+		}
+		return count;
+	}
+
+	/**
+	 * Collect the empty cells, a word of the bitset at a time.
+	 * @param cells The array to collect the indexes of the cells into, at
+	 * least {@link #getSize()} long.
+	 * @return The number of the empty cells.
+	 */
+	public int collectEmpty(int[] cells) {
+		int size = getSize();
+		int count = 0;
+		for (int word = 0; word < stones[1].length; word++) {
+			long empty = ~(stones[1][word] | stones[2][word]);
+			int base = word << 6;
+			if (size - base < 64) {
+				// The bits beyond the last cell
+				empty &= (1L << (size - base)) - 1;
+			}
+			while (empty != 0) {
+				cells[count++] = base + Long.numberOfTrailingZeros(empty);
+				empty &= empty - 1;
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,179 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The tables of a map size that do not change during the game, shared by all
+ * the {@link ForwardModel}s of the size: the windows (every five cells in a
+ * row) and the windows through the cells, the neighbours of the cells, and
+ * the Zobrist keys of the stones.
+ */
+final class BoardGeometry {
+
+	/**
+	 * The distance of the cells worth searching from the stones.
+	 */
+	static final int RADIUS = 2;
+
+	/**
+	 * The shared geometries, by the width and the height.
+	 */
+	private static final ConcurrentMap<Long, BoardGeometry> geometries = new ConcurrentHashMap<>();
+
+	final int width;
+
+	final int height;
+
+	final int size;
+
+	final int center;
+
+	/**
+	 * The windows through the cells.
+	 */
+	final int[][] cellWindows;
+
+	final int windowCount;
+
+	/**
+	 * The first cells of the windows, and the steps of the indexes to the
+	 * next cells of the windows.
+	 */
+	final int[] windowStarts;
+	final int[] windowSteps;
+
+	/**
+	 * The cells at most {@link #RADIUS} cells away from the cells.
+	 */
+	final int[][] neighbours;
+
+	/**
+	 * The Zobrist keys of the stones, indexed by the stone and the cell. The
+	 * keys are the same for the same map size (even in other processes).
+	 */
+	final long[][] keys;
+
+	/**
+	 * The key of the {@link ForwardModel#ENEMY} being on move.
+	 */
+	final long sideKey;
+
+	private BoardGeometry(int width, int height) {
+		this.width = width;
+		this.height = height;
+		size = width * height;
+		center = (height / 2) * width + width / 2;
+		// The windows in the four directions: right, up, up-right, up-left
+		int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+		int[] windowCounts = new int[size];
+		int[][] windows = null;
+		int[] starts = null;
+		int[] steps = null;
+		int count = 0;
+		for (int pass = 0; pass < 2; pass++) {
+			count = 0;
+			for (int[] direction : directions) {
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						int endX = x + 4 * direction[0];
+						int endY = y + 4 * direction[1];
+						if (endX < 0 || endX >= width || endY >= height) {
+							continue;
+						}
+						for (int i = 0; i < 5; i++) {
+							int index = (y + i * direction[1]) * width + x + i * direction[0];
+							if (pass == 0) {
+								++windowCounts[index];
+							} else {
+								windows[index][--windowCounts[index]] = count;
+							}
+						}
+						if (pass == 1) {
+							starts[count] = y * width + x;
+							steps[count] = direction[1] * width + direction[0];
+						}
+						++count;
+					}
+				}
+			}
+			if (pass == 0) {
+				windows = new int[size][];
+				for (int index = 0; index < size; index++) {
+					windows[index] = new int[windowCounts[index]];
+				}
+				starts = new int[count];
+				steps = new int[count];
+			}
+		}
+		cellWindows = windows;
+		windowCount = count;
+		windowStarts = starts;
+		windowSteps = steps;
+		neighbours = new int[size][];
+		int[] buffer = new int[(2 * RADIUS + 1) * (2 * RADIUS + 1)];
+		for (int index = 0; index < size; index++) {
+			int x = index % width;
+			int y = index / width;
+			int found = 0;
+			for (int dy = -RADIUS; dy <= RADIUS; dy++) {
+				for (int dx = -RADIUS; dx <= RADIUS; dx++) {
+					if ((dx != 0 || dy != 0) && x + dx >= 0 && x + dx < width && y + dy >= 0 && y + dy < height) {
+						buffer[found++] = index + dy * width + dx;
+					}
+				}
+			}
+			neighbours[index] = Arrays.copyOf(buffer, found);
+		}
+		keys = new long[3][size];
+		for (int stone = 1; stone <= 2; stone++) {
+			for (int index = 0; index < size; index++) {
+				keys[stone][index] = mix((long) size << 32 | (long) index << 2 | stone);
+			}
+		}
+		sideKey = mix((long) size << 32);
+	}
+
+	/**
+	 * Get the geometry of a map size.
+	 * @param width The width of the map.
+	 * @param height The height of the map.
+	 * @return The shared geometry.
+	 */
+	static BoardGeometry get(int width, int height) {
+		Long key = (long) width << 32 | height;
+		BoardGeometry geometry = geometries.get(key);
+		if (geometry == null) {
+			BoardGeometry created = new BoardGeometry(width, height);
+			geometry = geometries.putIfAbsent(key, created);
+			if (geometry == null) {
+				geometry = created;
+			}
+		}
+		return geometry;
+	}
+
+	/**
+	 * The finaliser of SplitMix64, to make the Zobrist keys.
+	 */
+	private static long mix(long value) {
+		value += 0x9E3779B97F4A7C15L;
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+}
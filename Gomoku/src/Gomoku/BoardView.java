@@ -0,0 +1,62 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+
+package Gomoku;
+
+/**
+ * A read-only view of the map of the game, for the {@link Player}s (see
+ * {@link PlayerManagerPlayerInterface#getBoard()}). The view reads the map of
+ * the game directly: it does not copy, allocate or look up anything, so it
+ * can be probed millions of times per move. The cells are indexed just like
+ * on the {@link Board}: the index of the cell at x,y is y * width + x.
+ */
+public interface BoardView {
+
+	public int getWidth();
+
+	public int getHeight();
+
+	/**
+	 * @return The number of the cells (width * height).
+	 */
+	public int getSize();
+
+	public int index(int x, int y);
+
+	public int getX(int index);
+
+	public int getY(int index);
+
+	public boolean isValidCoordinate(int x, int y);
+
+	/**
+	 * @param x The x coordinate of the cell.
+	 * @param y The y coordinate of the cell.
+	 * @return The character in the cell, or the empty character if the
+	 * coordinates are off the map.
+	 */
+	public char get(int x, int y);
+
+	/**
+	 * @param index The index of a cell on the map.
+	 * @return The character in the cell.
+	 */
+	public char get(int index);
+
+	/**
+	 * @param index The index of a cell on the map.
+	 * @return True if the cell is empty.
+	 */
+	public boolean isEmpty(int index);
+
+}
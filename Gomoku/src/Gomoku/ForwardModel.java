@@ -0,0 +1,647 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import StrategySimulator.Library.Search.GameState;
+import StrategySimulator.Library.Search.RandomGame;
+
+import java.util.Arrays;
+
+/**
+ * A model of the game for the searches of the players: moves can be made and
+ * taken back on it, and the result of the game is known after every move,
+ * without touching the real game. It has the same rules as the {@link
+ * GameLogic}, as it is built on the same {@link Board}: a stone can be
+ * placed on an empty cell, five or more stones of a player in a row win, and
+ * a full board is a draw.
+ * <p>
+ * The stones are numbered from the point of view of the player owning the
+ * model: {@link #PLAYER} for its own stones, {@link #ENEMY} for the enemy's.
+ * The model does not allocate after it is created, and the result is checked
+ * only on the lines through the last stone, so millions of positions can be
+ * searched in a second. A player gets its own model loaded with the current
+ * map from {@link PlayerManagerPlayerInterface#getForwardModel()}.
+ * <p>
+ * The model is the {@link GameState} of Gomoku for the generic searches of
+ * the library, so it keeps the tables of the searches up to date with every
+ * move: the Zobrist hash of the position, the number of the stones of the
+ * sides in every five cells in a row (a window), the evaluation of the
+ * position by the windows, and the number of the stones near the empty
+ * cells (the moves worth searching).
+ * <p>
+ * The moves worth searching, the empty cells at most two cells away from a
+ * stone (the candidates), are kept in a sparse set, and the value of the
+ * windows through every cell (see {@link #getThreat(int)}) in an
+ * array, both updated only around the cell of every move and take-back. So
+ * the players iterate only the candidates ({@link #getCandidateCount()} and
+ * {@link #getCandidate(int)}), without scanning the whole map, which is
+ * mostly empty on the large maps.
+ */
+public class ForwardModel implements GameState, RandomGame {
+
+	/**
+	 * The stones (and the win) of the player owning the model.
+	 */
+	public static final int PLAYER = 1;
+
+	/**
+	 * The stones (and the win) of the enemy.
+	 */
+	public static final int ENEMY = 2;
+
+	/**
+	 * The result of a game ended with a full board.
+	 */
+	public static final int DRAW = GameState.DRAW;
+
+	/**
+	 * The value of a window by the number of the stones of a side in it, if
+	 * the other side has no stones in it. A window filled by a side is a
+	 * win.
+	 */
+	private static final int[] WEIGHTS = {0, 1, 10, 100, 1000, 1000000};
+
+	/**
+	 * The value of a move making (or blocking) five in a row for {@link
+	 * #getThreat(int)}.
+	 */
+	public static final int FIVE = WEIGHTS[5];
+
+	/**
+	 * The change of the value of a window for its cells (see {@link
+	 * #getThreat(int)}), when a side places a stone into it, indexed by
+	 * the stones of the side before (0 to 4) times 6, plus the stones of the
+	 * other side (0 to 5).
+	 */
+	private static final int[] THREAT_CHANGES = new int[5 * 6];
+
+	static {
+		for (int stones = 0; stones < 5; stones++) {
+			for (int others = 0; others <= 5; others++) {
+				THREAT_CHANGES[stones * 6 + others] = getWindowThreat(stones + 1, others) - getWindowThreat(stones, others);
+			}
+		}
+	}
+
+	private final Board board;
+
+	private final BoardGeometry geometry;
+
+	/**
+	 * The number of the stones of the sides in the windows, indexed by the
+	 * side.
+	 */
+	private final int[][] counts;
+
+	/**
+	 * The number of the stones at most {@link BoardGeometry#RADIUS} cells
+	 * away from the cells.
+	 */
+	private final int[] near;
+
+	/**
+	 * The candidates in no particular order, and the positions of the cells
+	 * in it (-1 if a cell is not a candidate), so a cell can be added and
+	 * removed at once.
+	 */
+	private final int[] candidates;
+	private final int[] candidatePositions;
+
+	private int candidateCount = 0;
+
+	/**
+	 * The value of the windows through the cells, the same for both sides
+	 * (see {@link #getThreat(int)}).
+	 */
+	private final int[] threats;
+
+	/**
+	 * The Zobrist hash of the stones.
+	 */
+	private long hash = 0;
+
+	/**
+	 * The evaluation of the position for the {@link #PLAYER}.
+	 */
+	private int evaluation = 0;
+
+	/**
+	 * The cells of the moves made since the model was loaded.
+	 */
+	private final int[] moves;
+
+	private int moveCount = 0;
+
+	private int emptyCells;
+
+	private int sideToMove = PLAYER;
+
+	private int winner = 0;
+
+	/**
+	 * The board and the empty cells of the random games, created with the
+	 * first game.
+	 */
+	private Board gameBoard = null;
+	private int[] gameEmpties = null;
+
+	/**
+	 * Create an empty model.
+	 * @param width The width of the map.
+	 * @param height The height of the map.
+	 */
+	public ForwardModel(int width, int height) {
+		board = new Board(width, height);
+		geometry = BoardGeometry.get(width, height);
+		moves = new int[board.getSize()];
+		counts = new int[3][geometry.windowCount];
+		near = new int[board.getSize()];
+		candidates = new int[board.getSize()];
+		candidatePositions = new int[board.getSize()];
+		threats = new int[board.getSize()];
+		emptyCells = board.getSize();
+		clearTables();
+	}
+
+	public int getWidth() {
+		return board.width;
+	}
+
+	public int getHeight() {
+		return board.height;
+	}
+
+	public int getSize() {
+		return board.getSize();
+	}
+
+	public int index(int x, int y) {
+		return board.index(x, y);
+	}
+
+	public int getX(int index) {
+		return board.getX(index);
+	}
+
+	public int getY(int index) {
+		return board.getY(index);
+	}
+
+	/**
+	 * Get the owner of a cell.
+	 * @param index The index of the cell.
+	 * @return {@link #PLAYER}, {@link #ENEMY}, or 0 if the cell is empty.
+	 */
+	public int get(int index) {
+		return board.get(index);
+	}
+
+	public boolean isEmpty(int index) {
+		return board.isEmpty(index);
+	}
+
+	public int getEmptyCells() {
+		return emptyCells;
+	}
+
+	/**
+	 * @return The side making the next move: {@link #PLAYER} or {@link
+	 * #ENEMY}.
+	 */
+	@Override
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	/**
+	 * Get the result of the game after the last move.
+	 * @return The side that won ({@link #PLAYER} or {@link #ENEMY}), {@link
+	 * #DRAW}, or 0 if the game goes on.
+	 */
+	@Override
+	public int getWinner() {
+		return winner;
+	}
+
+	public boolean isOver() {
+		return winner != 0;
+	}
+
+	/**
+	 * @return The number of the moves made since the model was loaded.
+	 */
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * @param number The number of the move since the model was loaded,
+	 * starting with 0.
+	 * @return The index of the cell of the move.
+	 */
+	public int getMove(int number) {
+		return moves[number];
+	}
+
+	/**
+	 * Check if a move can be made: the game goes on, and the cell is on the
+	 * map and empty.
+	 * @param index The index of the cell.
+	 * @return True if the move is legal.
+	 */
+	public boolean isLegal(int index) {
+		return winner == 0 && index >= 0 && index < moves.length && board.isEmpty(index);
+	}
+
+	/**
+	 * Place a stone of the side to move, and check the result of the game.
+	 * @param index The index of the cell.
+	 * @throws IllegalArgumentException If the move is not legal.
+	 */
+	@Override
+	public void make(int index) {
+		if (!isLegal(index)) {
+			throw new IllegalArgumentException("Illegal move to the cell " + index + ".");
+		}
+		board.set(index, sideToMove);
+		moves[moveCount++] = index;
+		--emptyCells;
+		if (place(index, sideToMove)) {
+			winner = sideToMove;
+		} else if (emptyCells == 0) {
+			winner = DRAW;
+		}
+		sideToMove = 3 - sideToMove;
+	}
+
+	/**
+	 * Take back the last move made with {@link #make(int)}.
+	 * @throws IllegalStateException If there is no move since the model was
+	 * loaded.
+	 */
+	@Override
+	public void unmake() {
+		if (moveCount == 0) {
+			throw new IllegalStateException("There is no move to take back.");
+		}
+		int index = moves[--moveCount];
+		sideToMove = 3 - sideToMove;
+		board.remove(index);
+		displace(index, sideToMove);
+		++emptyCells;
+		// The game went on until the last move
+		winner = 0;
+	}
+
+	@Override
+	public int getMaxMoves() {
+		return moves.length;
+	}
+
+	/**
+	 * Collect the candidates: the empty cells at most two cells away from a
+	 * stone (or the center of an empty map).
+	 * @param moves The array to collect the cells into, at least {@link
+	 * #getSize()} long.
+	 * @return The number of the cells, 0 if the game is over.
+	 */
+	@Override
+	public int generateMoves(int[] moves) {
+		if (winner != 0) {
+			return 0;
+		} else if (candidateCount == 0) {
+			// An empty map (a full map is a draw)
+			moves[0] = geometry.center;
+			return 1;
+		}
+		System.arraycopy(candidates, 0, moves, 0, candidateCount);
+		return candidateCount;
+	}
+
+	/**
+	 * @return The number of the candidates: the empty cells at most two cells
+	 * away from a stone.
+	 */
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	/**
+	 * @param number The number of the candidate, from 0 to {@link
+	 * #getCandidateCount()} - 1. The order of the candidates changes with the
+	 * moves.
+	 * @return The index of the cell of the candidate.
+	 */
+	public int getCandidate(int number) {
+		return candidates[number];
+	}
+
+	/**
+	 * @param index The index of the cell.
+	 * @return True if the cell is empty, and at most two cells away from a
+	 * stone.
+	 */
+	public boolean isCandidate(int index) {
+		return candidatePositions[index] >= 0;
+	}
+
+	@Override
+	public long getHash() {
+		return sideToMove == PLAYER ? hash : hash ^ geometry.sideKey;
+	}
+
+	/**
+	 * Play uniformly random moves on the empty cells of a copy of the board,
+	 * checking only the rows through the stones placed, without updating the
+	 * tables of the searches.
+	 */
+	@Override
+	public int playRandomGame(int[] path, int count, long seed) {
+		if (winner != 0) {
+			return winner;
+		}
+		if (gameBoard == null) {
+			gameBoard = new Board(board.width, board.height);
+			gameEmpties = new int[moves.length];
+		}
+		gameBoard.copyFrom(board);
+		int side = sideToMove;
+		for (int i = 0; i < count; i++) {
+			gameBoard.set(path[i], side);
+			side = 3 - side;
+		}
+		int empties = gameBoard.collectEmpty(gameEmpties);
+		long random = seed;
+		while (empties > 0) {
+			// xorshift64*
+			random ^= random >>> 12;
+			random ^= random << 25;
+			random ^= random >>> 27;
+			int pick = (int) (((random * 0x2545F4914F6CDD1DL) >>> 33) * empties >>> 31);
+			int index = gameEmpties[pick];
+			gameEmpties[pick] = gameEmpties[--empties];
+			gameBoard.set(index, side);
+			if (gameBoard.isFive(index)) {
+				return side;
+			}
+			side = 3 - side;
+		}
+		return DRAW;
+	}
+
+	@Override
+	public ForwardModel copy() {
+		ForwardModel copy = new ForwardModel(board.width, board.height);
+		copy.copyFrom(this);
+		return copy;
+	}
+
+	/**
+	 * Get the evaluation of the position by the windows: a window with the
+	 * stones of only one of the sides is worth more for the side the more
+	 * stones it has. Meaningful only while the game goes on.
+	 * @return The evaluation for the {@link #PLAYER}, positive if the
+	 * position is better for it.
+	 */
+	public int getEvaluation() {
+		return evaluation;
+	}
+
+	/**
+	 * Get the value of the windows a stone on an empty cell would make for
+	 * the side placing it, and block for the other side. Making a window of a
+	 * side is worth the same as blocking it, so the value is the same for
+	 * both sides. The value is kept up to date with every move, so this is
+	 * a lookup.
+	 * @param index The index of the cell.
+	 * @return The value, at least {@link #FIVE} if the stone makes or blocks
+	 * five in a row.
+	 */
+	public int getThreat(int index) {
+		return threats[index];
+	}
+
+	/**
+	 * Load a map, with the player on move.
+	 * @param view The map.
+	 * @param you The character of the player owning the model, all the other
+	 * stones are the enemy's.
+	 * @throws IllegalArgumentException If the map has a different size.
+	 */
+	public void load(BoardView view, char you) {
+		if (view.getWidth() != board.width || view.getHeight() != board.height) {
+			throw new IllegalArgumentException("The map should be " + board.width + " by " + board.height + ".");
+		}
+		board.clear();
+		for (int index = 0; index < moves.length; index++) {
+			if (!view.isEmpty(index)) {
+				board.set(index, view.get(index) == you ? PLAYER : ENEMY);
+			}
+		}
+		loaded();
+	}
+
+	/**
+	 * Load the board of the game, with the player on move.
+	 * @param other The board of the game, of the same size.
+	 * @param player The number of the player owning the model in the game.
+	 */
+	void load(Board other, int player) {
+		board.copyFrom(other);
+		if (player != PLAYER) {
+			board.swapPlayers();
+		}
+		loaded();
+	}
+
+	/**
+	 * Copy another model of the same size, for example for another thread
+	 * of a search.
+	 * @param other The model to copy.
+	 * @throws IllegalArgumentException If the model has a different size.
+	 */
+	public void copyFrom(ForwardModel other) {
+		if (other.board.width != board.width || other.board.height != board.height) {
+			throw new IllegalArgumentException("The model should be " + board.width + " by " + board.height + ".");
+		}
+		board.copyFrom(other.board);
+		System.arraycopy(other.moves, 0, moves, 0, other.moveCount);
+		for (int side = PLAYER; side <= ENEMY; side++) {
+			System.arraycopy(other.counts[side], 0, counts[side], 0, counts[side].length);
+		}
+		System.arraycopy(other.near, 0, near, 0, near.length);
+		System.arraycopy(other.candidates, 0, candidates, 0, other.candidateCount);
+		System.arraycopy(other.candidatePositions, 0, candidatePositions, 0, candidatePositions.length);
+		System.arraycopy(other.threats, 0, threats, 0, threats.length);
+		candidateCount = other.candidateCount;
+		moveCount = other.moveCount;
+		emptyCells = other.emptyCells;
+		sideToMove = other.sideToMove;
+		winner = other.winner;
+		hash = other.hash;
+		evaluation = other.evaluation;
+	}
+
+	/**
+	 * Build the tables of the searches for the loaded board.
+	 */
+	private void loaded() {
+		clearTables();
+		for (int index = 0; index < moves.length; index++) {
+			int stone = board.get(index);
+			if (stone != 0) {
+				place(index, stone);
+			}
+		}
+		moveCount = 0;
+		emptyCells = board.getSize() - board.countStones();
+		sideToMove = PLAYER;
+		winner = 0;
+	}
+
+	/**
+	 * Clear the tables of the searches for an empty board.
+	 */
+	private void clearTables() {
+		for (int[] sideCounts : counts) {
+			Arrays.fill(sideCounts, 0);
+		}
+		Arrays.fill(near, 0);
+		Arrays.fill(candidatePositions, -1);
+		candidateCount = 0;
+		for (int index = 0; index < threats.length; index++) {
+			threats[index] = geometry.cellWindows[index].length * getWindowThreat(0, 0);
+		}
+		hash = 0;
+		evaluation = 0;
+	}
+
+	/**
+	 * Update the tables of the searches with a stone placed on the board.
+	 * @return True if the stone made five in a row.
+	 */
+	private boolean place(int index, int side) {
+		hash ^= geometry.keys[side][index];
+		int[] own = counts[side];
+		int[] other = counts[3 - side];
+		boolean five = false;
+		int delta = 0;
+		for (int window : geometry.cellWindows[index]) {
+			int stones = own[window]++;
+			int others = other[window];
+			delta += getWindowChange(stones, others);
+			updateThreats(window, THREAT_CHANGES[stones * 6 + others]);
+			if (stones == 4) {
+				five = true;
+			}
+		}
+		evaluation += side == PLAYER ? delta : -delta;
+		removeCandidate(index);
+		for (int neighbour : geometry.neighbours[index]) {
+			if (near[neighbour]++ == 0 && board.isEmpty(neighbour)) {
+				addCandidate(neighbour);
+			}
+		}
+		return five;
+	}
+
+	/**
+	 * Update the tables of the searches with a stone removed from the board.
+	 */
+	private void displace(int index, int side) {
+		hash ^= geometry.keys[side][index];
+		int[] own = counts[side];
+		int[] other = counts[3 - side];
+		int delta = 0;
+		for (int window : geometry.cellWindows[index]) {
+			int stones = --own[window];
+			int others = other[window];
+			delta += getWindowChange(stones, others);
+			updateThreats(window, -THREAT_CHANGES[stones * 6 + others]);
+		}
+		evaluation -= side == PLAYER ? delta : -delta;
+		for (int neighbour : geometry.neighbours[index]) {
+			if (--near[neighbour] == 0) {
+				removeCandidate(neighbour);
+			}
+		}
+		if (near[index] > 0) {
+			addCandidate(index);
+		}
+	}
+
+	/**
+	 * Add the change of the value of a window to the cells of the window.
+	 */
+	private void updateThreats(int window, int change) {
+		if (change != 0) {
+			int step = geometry.windowSteps[window];
+			int cell = geometry.windowStarts[window];
+			threats[cell] += change;
+			threats[cell + step] += change;
+			threats[cell + 2 * step] += change;
+			threats[cell + 3 * step] += change;
+			threats[cell + 4 * step] += change;
+		}
+	}
+
+	private void addCandidate(int index) {
+		candidatePositions[index] = candidateCount;
+		candidates[candidateCount++] = index;
+	}
+
+	private void removeCandidate(int index) {
+		int position = candidatePositions[index];
+		if (position >= 0) {
+			int last = candidates[--candidateCount];
+			candidates[position] = last;
+			candidatePositions[last] = position;
+			candidatePositions[index] = -1;
+		}
+	}
+
+	/**
+	 * The value of a window for the stone of either side on its cells: the
+	 * value of the window of the side made, and of the other side blocked.
+	 * @param stones The stones of one side in the window.
+	 * @param others The stones of the other side in the window.
+	 */
+	private static int getWindowThreat(int stones, int others) {
+		int threat = 0;
+		if (others == 0) {
+			threat += WEIGHTS[Math.min(stones + 1, 5)];
+		}
+		if (stones == 0) {
+			threat += WEIGHTS[Math.min(others + 1, 5)];
+		}
+		return threat;
+	}
+
+	/**
+	 * The change of the value of a window for a side, when the side places
+	 * a stone into it.
+	 * @param own The stones of the side in the window before.
+	 * @param other The stones of the other side in the window.
+	 */
+	private static int getWindowChange(int own, int other) {
+		if (other == 0) {
+			return WEIGHTS[own + 1] - WEIGHTS[own];
+		} else if (own == 0) {
+			// The window of the other side is blocked
+			return WEIGHTS[other];
+		} else {
+			return 0;
+		}
+	}
+
+}
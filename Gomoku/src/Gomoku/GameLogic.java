@@ -14,33 +14,68 @@ package Gomoku;
 
 import hu.hgj.improvedconfiguration.Configuration;
 
+import Gomoku.Records.GameRecord;
+import Gomoku.Records.GameRecordWriter;
+import StrategySimulator.Library.Search.Searchable;
+
 import java.io.File;
-import java.io.PrintStream;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.*;
 
-public class GameLogic extends StrategySimulator.Library.GameLogic {
-
-	protected Map<Integer, PlayerManager> playerManagers = new HashMap<>();
+public class GameLogic extends StrategySimulator.Library.GameLogic<PlayerManager>
+		implements Searchable<ForwardModel> {
 
 	protected Integer width = 0;
 	protected Integer height = 0;
-	protected char[][] map = null;
+	protected Board board = null;
 	protected char emptyChar = '.';
+	/**
+	 * The characters of the cells, indexed by the player number stored in
+	 * the {@link #board}: the {@link #emptyChar} and the players' characters.
+	 */
+	protected char[] playerChars = new char[3];
 	protected int nextPlayer = 1;
 	protected int winner = 0;
 
+	/**
+	 * The read-only view of the {@link #board} for the players.
+	 */
+	protected final BoardView boardView = new View();
+
+	/**
+	 * The number of empty cells on the {@link #board}, updated on every step,
+	 * so a full board (a draw) can be detected without a scan.
+	 */
+	protected int emptyCells = 0;
+
+	/**
+	 * Verification mode ('game.verify'): check the result of the incremental
+	 * {@link #checkMove(int, int)} against the full {@link #checkMap()} scan
+	 * after every step.
+	 */
+	protected boolean verify = false;
+
+	/**
+	 * Draws the map for the debug log, only if debug logging is enabled.
+	 */
+	protected MapRenderer mapRenderer = null;
+
+	/**
+	 * Record the games ('createlog') into the record file ('log.file').
+	 */
 	protected boolean createLog = false;
-	protected PrintStream logFileStream = null;
+	protected String logFileName = "Gomoku.games";
+
+	/**
+	 * The record of the current game, kept in memory until the game is
+	 * finalised, and written to the shared {@link #recordWriter} then.
+	 */
+	protected GameRecord record = null;
+	protected GameRecordWriter recordWriter = null;
 
 	public GameLogic(Configuration configuration, List<StrategySimulator.Library.PlayerManager> players) {
-		super(configuration, players);
-		// Copy the references of the StrategySimulator.Library.PlayerManagers
-		// into the playerManagers Map, casted into EmptyGame.PlayerManagers.
-		for (Integer key : superPlayerManagers.keySet()) {
-			playerManagers.put(key, (PlayerManager) superPlayerManagers.get(key));
-		}
-		logger.debug("Gomoku.GameLogic constructed. Stored a list of playerManagers.");
+		super(configuration, players, PlayerManager.class);
+		logger.debug("Gomoku.GameLogic constructed.");
 	}
 
 	@Override
@@ -48,40 +83,125 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 		return "Gomoku";
 	}
 
+	@Override
+	public int getWinner() {
+		return winner > 0 ? winner : 0;
+	}
+
+	/**
+	 * Create a {@link ForwardModel} loaded with the current map, with the
+	 * player on move.
+	 * @param player The number of the player owning the model.
+	 * @return The new model.
+	 */
+	@Override
+	public ForwardModel createState(int player) {
+		ForwardModel model = new ForwardModel(board.width, board.height);
+		model.load(board, player);
+		return model;
+	}
+
 	protected boolean isValidCoordinate(int x, int y) {
 		return (x >= 0 && x < width) && (y >= 0 && y < height);
 	}
 
 	protected boolean isValidStep(int x, int y) {
-		return isValidCoordinate(x, y) && (map[x][y] == emptyChar);
+		return isValidCoordinate(x, y) && board.isEmpty(board.index(x, y));
 	}
 
 	protected char getMapAt(int x, int y) {
 		if (isValidCoordinate(x, y)) {
-			return map[x][y];
+			return playerChars[board.get(board.index(x, y))];
 		} else {
 			return emptyChar;
 		}
 	}
 
 	protected char[][] getWholeMap() {
-		return map.clone();
+		char[][] wholeMap = new char[width][height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				wholeMap[x][y] = playerChars[board.get(board.index(x, y))];
+			}
+		}
+		return wholeMap;
 	}
 
-	protected int getPlayerForChar(char c) {
-		if (playerManagers.get(1).playerChar == c) {
-			return 1;
-		} else if (playerManagers.get(2).playerChar == c) {
-			return 2;
-		} else {
-			return 0;
+	/**
+	 * The {@link BoardView} of the game, reading the current {@link #board}.
+	 */
+	private class View implements BoardView {
+
+		@Override
+		public int getWidth() {
+			return board.width;
+		}
+
+		@Override
+		public int getHeight() {
+			return board.height;
+		}
+
+		@Override
+		public int getSize() {
+			return board.getSize();
+		}
+
+		@Override
+		public int index(int x, int y) {
+			return board.index(x, y);
+		}
+
+		@Override
+		public int getX(int index) {
+			return board.getX(index);
+		}
+
+		@Override
+		public int getY(int index) {
+			return board.getY(index);
+		}
+
+		@Override
+		public boolean isValidCoordinate(int x, int y) {
+			return board.isValidCoordinate(x, y);
+		}
+
+		@Override
+		public char get(int x, int y) {
+			return board.isValidCoordinate(x, y) ? playerChars[board.get(board.index(x, y))] : emptyChar;
+		}
+
+		@Override
+		public char get(int index) {
+			return playerChars[board.get(index)];
+		}
+
+		@Override
+		public boolean isEmpty(int index) {
+			return board.isEmpty(index);
+		}
+
+	}
+
+	/**
+	 * The move made instead of a player, that ran out of time.
+	 * @return The packed coordinates of the first empty cell (see {@link
+	 * Move}).
+	 */
+	protected int getDefaultMove() {
+		for (int index = 0; index < board.getSize(); index++) {
+			if (board.isEmpty(index)) {
+				return Move.pack(board.getX(index), board.getY(index));
+			}
 		}
+		return Move.NONE;
 	}
 
 	@Override
 	protected boolean reset() {
 		// Check the players
-		if (playerManagers.size() != 2) {
+		if (getNumberOfPlayerManagers() != 2) {
 			logger.error("The Gomoku game should be played by two players!");
 			return false;
 		}
@@ -95,12 +215,21 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 			logger.error("Please specify a game map at least 5 by 5!");
 			return false;
 		}
-		map = new char[width][height];
+		if (board == null || board.width != width || board.height != height) {
+			board = new Board(width, height);
+		}
+		if (mapRenderer == null) {
+			mapRenderer = new MapRenderer(playerManagers[1], false);
+		}
+		verify = configuration.getBoolean("game.verify") != null && configuration.getBoolean("game.verify");
 		if (configuration.getBoolean("createlog") == null) {
 			createLog = false;
 		} else {
 			createLog = configuration.getBoolean("createlog");
 		}
+		if (configuration.get("log.file") != null) {
+			logFileName = configuration.get("log.file");
+		}
 		logger.debug("Gomoku.GameLogic was reset, game environment constructed.");
 		return true;
 	}
@@ -108,23 +237,31 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 	@Override
 	protected boolean resetAfter() {
 		// Check players
-		if (playerManagers.get(1).playerChar == playerManagers.get(2).playerChar
-				|| playerManagers.get(1).playerChar == ' ' || playerManagers.get(2).playerChar == ' ') {
+		if (playerManagers[1].playerChar == playerManagers[2].playerChar
+				|| playerManagers[1].playerChar == ' ' || playerManagers[2].playerChar == ' ') {
 			logger.error("Could not finish resetting GameLogic, as the players have invalid configuration!");
 			return false;
 		} else {
-			playerManagers.get(1).enemyChar = playerManagers.get(2).playerChar;
-			playerManagers.get(2).enemyChar = playerManagers.get(1).playerChar;
+			playerManagers[1].enemyChar = playerManagers[2].playerChar;
+			playerManagers[2].enemyChar = playerManagers[1].playerChar;
+			playerChars[0] = emptyChar;
+			playerChars[1] = playerManagers[1].playerChar;
+			playerChars[2] = playerManagers[2].playerChar;
 		}
 		// Create log if neccessary
 		if (createLog) {
-			File logFile = new File("Gomoku--" + new SimpleDateFormat("yyyy-MM-dd--HH-mm-ss").format(Calendar.getInstance().getTime()) + ".log");
 			try {
-				logFileStream = new PrintStream(logFile);
-				logFileStream.println(width + " " + height);
-				logger.info("Created logfile '{}'.", logFile.getAbsolutePath());
-			} catch (Exception e) {
-				logger.warn("Can not create logfile '{}'.", logFile.getAbsolutePath());
+				recordWriter = GameRecordWriter.get(new File(logFileName));
+				if (record == null) {
+					record = new GameRecord();
+				}
+				record.reset(width, height);
+				for (int player = 1; player <= 2; player++) {
+					record.setPlayer(player, playerChars[player], playerManagers[player].getPlayerName());
+				}
+				logger.debug("Recording the game into '{}'.", logFileName);
+			} catch (IOException e) {
+				logger.warn("Can not open logfile '{}'.", new File(logFileName).getAbsolutePath(), e);
 				createLog = false;
 			}
 		} else {
@@ -135,11 +272,8 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 
 	@Override
 	protected boolean initialise() {
-		for (int y = 0; y < height; y++) {
-			for (int x = 0; x < height; x++) {
-				map[x][y] = emptyChar;
-			}
-		}
+		board.clear();
+		emptyCells = board.getSize();
 		nextPlayer = 1;
 		winner = 0;
 		logger.debug("Gomoku.GameLogic was initialised, map is blanked.");
@@ -152,127 +286,42 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 		return true;
 	}
 
-	protected int checkMap() {
-		// Map axes are: y up, x right
-		char lastChar;
-		int number;
-		// Check for horizontal win
-		for (int y = 0; y < height; y++) {
-			lastChar = emptyChar;
-			number = 0;
-			for (int x = 0; x < width; x++) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-			}
-		}
-		// Check for vertical win
-		for (int x = 0; x < width; x++) {
-			lastChar = emptyChar;
-			number = 0;
-			for (int y = 0; y < height; y++) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-			}
-		}
-		// Check for \ diagonal win
-		for (int sy = 4; sy < height; sy++) {
-			lastChar = emptyChar;
-			number = 0;
-			int x = 0;
-			int y = sy;
-			while (y >= 0 && x < width) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-				--y;
-				++x;
-			}
-		}
-		for (int sx = 0; sx < width - 4; sx++) {
-			lastChar = emptyChar;
-			number = 0;
-			int x = sx;
-			int y = height - 1;
-			while (y >= 0 && x < width) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-				--y;
-				++x;
-			}
-		}
-		// Check for / diagonal win
-		for (int sy = 0; sy < height - 4; sy++) {
-			lastChar = emptyChar;
-			number = 0;
-			int x = 0;
-			int y = sy;
-			while (y < height && x < width) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-				++y;
-				++x;
-			}
+	/**
+	 * Check the result of the game after a stone was placed, by looking only
+	 * at the four lines through the stone, and the number of the empty cells.
+	 * @param x The x coordinate of the last placed stone.
+	 * @param y The y coordinate of the last placed stone.
+	 * @return The number of the winner, 0 if the game goes on, or -1 if the
+	 * game is a draw.
+	 */
+	protected int checkMove(int x, int y) {
+		int index = board.index(x, y);
+		if (board.isFive(index)) {
+			return board.get(index);
+		} else if (emptyCells == 0) {
+			return -1;
+		} else {
+			return 0;
 		}
-		for (int sx = 1; sx < width - 4; sx++) {
-			lastChar = emptyChar;
-			number = 0;
-			int x = sx;
-			int y = 0;
-			while (y < height && x < width) {
-				if (lastChar == map[x][y]) {
-					++number;
-					if (number == 5 && lastChar != emptyChar) {
-						return getPlayerForChar(lastChar);
-					}
-				} else {
-					lastChar = map[x][y];
-					number = 1;
-				}
-				++y;
-				++x;
+	}
+
+	/**
+	 * Check the result of the game by scanning the whole board. This is much
+	 * slower than {@link #checkMove(int, int)}, and is only used to verify it
+	 * in verification mode.
+	 * @return The number of the winner, 0 if the game goes on, or -1 if the
+	 * game is a draw.
+	 */
+	protected int checkMap() {
+		// Check for five in a row of any of the players
+		for (int player = 1; player <= 2; player++) {
+			if (board.hasFive(player)) {
+				return player;
 			}
 		}
 		// Check for empty places
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				if (map[x][y] == emptyChar) {
-					return 0;
-				}
-			}
+		if (board.countStones() < board.getSize()) {
+			return 0;
 		}
 		// We did not find any empty place, so it is a draw
 		return -1;
@@ -281,34 +330,42 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 	@Override
 	protected boolean stepGame() {
 
-		PlayerManager playerManager = playerManagers.get(nextPlayer++);
-		if (nextPlayer == 3) {
-			nextPlayer = 1;
-		}
+		int currentPlayer = nextPlayer;
+		PlayerManager playerManager = playerManagers[currentPlayer];
+		nextPlayer = currentPlayer == 1 ? 2 : 1;
 
-		int[] result = playerManager.stepPlayer();
+		int move = playerManager.stepPlayer();
+		int x = Move.getX(move);
+		int y = Move.getY(move);
 		if (createLog) {
-			logFileStream.println(result[0] + " " + result[1]);
+			record.addMove(x, y);
 		}
-		if (isValidStep(result[0], result[1])) {
-			map[result[0]][result[1]] = playerManager.playerChar;
-			logger.debug("Player {} placed its {} to {},{}.", playerManager.getPlayerIdentity(), playerManager.playerChar, result[0], result[1]);
+		if (playerManager.isTimedOut() && playerManager.getTimeoutAction() == PlayerManager.TimeoutAction.FORFEIT) {
+			logger.info("Player {} loses as it ran out of time.", playerManager.getPlayerIdentity());
+			winner = nextPlayer;
+			return false;
+		} else if (isValidStep(x, y)) {
+			board.set(board.index(x, y), currentPlayer);
+			--emptyCells;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Player {} placed its {} to {},{}.", playerManager.getPlayerIdentity(), playerManager.playerChar, x, y);
+			}
 		} else {
-			logger.info("Player {} loses as it wants to put to the invalid coordinate {},{}.", playerManager.getPlayerIdentity(), result[0], result[1]);
+			logger.info("Player {} loses as it wants to put to the invalid coordinate {},{}.", playerManager.getPlayerIdentity(), x, y);
 			winner = nextPlayer;
 			return false;
 		}
 
-		String drawnMap = "";
-		for (int y = height - 1; y >= 0; y--) {
-			for (int x = 0; x < width; x++) {
-				drawnMap += map[x][y] + " ";
+		logger.debug("The map looks like this:\n{}", mapRenderer);
+
+		winner = checkMove(x, y);
+		if (verify) {
+			int expected = checkMap();
+			if (expected != winner) {
+				logger.error("Incremental check says {}, but the full scan says {} after the step to {},{}!", winner, expected, x, y);
+				winner = expected;
 			}
-			drawnMap += "\n";
 		}
-		logger.debug("The map looks like this:\n{}", drawnMap);
-
-		winner = checkMap();
 		if (winner != 0) {
 			logger.info("Game ended.");
 			return false;
@@ -320,12 +377,17 @@ public class GameLogic extends StrategySimulator.Library.GameLogic {
 	@Override
 	protected boolean finalise() {
 		if (winner > 0) {
-			logger.info("{} won the game.", playerManagers.get(winner).getPlayerIdentity());
+			logger.info("{} won the game.", playerManagers[winner].getPlayerIdentity());
 		} else {
 			logger.info("The game is a draw.");
 		}
 		if (createLog) {
-			logFileStream.close();
+			record.setWinner(winner > 0 ? winner : 0);
+			try {
+				recordWriter.write(record);
+			} catch (IOException e) {
+				logger.warn("Can not write the game into logfile '{}'.", logFileName, e);
+			}
 		}
 		logger.debug("Gomoku.GameLogic was finalised.");
 		return true;
@@ -0,0 +1,79 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+/**
+ * Draws the map as text into a reusable {@link StringBuilder}. The map is
+ * only drawn when {@link #render()} or {@link #toString()} is called, so the
+ * renderer itself can be passed to the loggers as a parameter, and the map is
+ * drawn only if the message is really logged.
+ */
+public class MapRenderer {
+
+	private final PlayerManagerPlayerInterface map;
+
+	private final boolean axes;
+
+	private final StringBuilder builder = new StringBuilder();
+
+	/**
+	 * Create a renderer for the map.
+	 * @param map The interface to read the map through.
+	 * @param axes Draw the coordinates next to the map.
+	 */
+	public MapRenderer(PlayerManagerPlayerInterface map, boolean axes) {
+		this.map = map;
+		this.axes = axes;
+	}
+
+	/**
+	 * Draw the current map, top row first.
+	 * @return The reused {@link StringBuilder} containing the drawn map. It is
+	 * only valid until the next call.
+	 */
+	public StringBuilder render() {
+		builder.setLength(0);
+		int width = map.getMapWidth();
+		int height = map.getMapHeight();
+		for (int y = height - 1; y >= 0; y--) {
+			if (axes) {
+				builder.append(y).append(y > 9 ? " " : "  ");
+			}
+			for (int x = 0; x < width; x++) {
+				builder.append(map.getMapAt(x, y)).append(' ');
+			}
+			builder.append('\n');
+		}
+		if (axes) {
+			builder.append('\n').append("   ");
+			for (int x = 0; x < width; x++) {
+				builder.append(x);
+				if (x <= 9) {
+					builder.append(' ');
+				}
+			}
+			builder.append('\n');
+		}
+		return builder;
+	}
+
+	/**
+	 * Draw the current map.
+	 * @return The drawn map.
+	 */
+	@Override
+	public String toString() {
+		return render().toString();
+	}
+
+}
@@ -0,0 +1,66 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+
+package Gomoku;
+
+/**
+ * Moves packed into a single int, so a {@link Player} can return its move
+ * without allocating (see {@link Player#move(BoardView, char, char, char)}).
+ * The x coordinate is stored in the upper, and the y coordinate in the lower
+ * 16 bits, both signed, so the coordinates must be within -32768 and 32767.
+ */
+public final class Move {
+
+	/**
+	 * The move of a player, that does not want to (or can not) move: -1,-1.
+	 */
+	public static final int NONE = pack(-1, -1);
+
+	private Move() {
+	}
+
+	/**
+	 * Pack the coordinates of a move.
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return The packed move.
+	 */
+	public static int pack(int x, int y) {
+		return (x << 16) | (y & 0xFFFF);
+	}
+
+	/**
+	 * @param move The packed move.
+	 * @return The x coordinate of the move.
+	 */
+	public static int getX(int move) {
+		return move >> 16;
+	}
+
+	/**
+	 * @param move The packed move.
+	 * @return The y coordinate of the move.
+	 */
+	public static int getY(int move) {
+		return (short) move;
+	}
+
+	/**
+	 * @param move The packed move.
+	 * @return The move as "x,y".
+	 */
+	public static String toString(int move) {
+		return getX(move) + "," + getY(move);
+	}
+
+}
@@ -16,6 +16,12 @@ public abstract class Player extends StrategySimulator.Library.Player {
 
 	protected PlayerManagerPlayerInterface manager;
 
+	/**
+	 * True if the player overrides {@link #step(char, char, char)} or {@link
+	 * #move(BoardView, char, char, char)}, checked once with the manager set.
+	 */
+	private boolean moving = false;
+
 	public Player() {
 		logger.debug("EmptyGame.Player constructed.");
 	}
@@ -24,9 +30,35 @@ public abstract class Player extends StrategySimulator.Library.Player {
 	protected void setManager(StrategySimulator.Library.PlayerManagerPlayerInterface superManager) {
 		super.setManager(superManager);
 		this.manager = (PlayerManagerPlayerInterface) superManager;
+		moving = overrides("step", char.class, char.class, char.class)
+				|| overrides("move", BoardView.class, char.class, char.class, char.class);
 		logger.debug("Stored the manager.");
 	}
 
+	/**
+	 * Tell whether the class of the player (or one of its parents below this
+	 * class) declares a method.
+	 */
+	private boolean overrides(String name, Class<?>... parameterTypes) {
+		for (Class<?> type = getClass(); type != Player.class; type = type.getSuperclass()) {
+			try {
+				type.getDeclaredMethod(name, parameterTypes);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// Not in this class, try its parent
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return True if the player can move: it overrides {@link #step(char,
+	 * char, char)} or {@link #move(BoardView, char, char, char)}.
+	 */
+	boolean isMoving() {
+		return moving;
+	}
+
 	@Override
 	protected boolean reset() {
 		logger.debug("Reseted.");
@@ -39,7 +71,38 @@ public abstract class Player extends StrategySimulator.Library.Player {
 		return true;
 	}
 
-	protected abstract int[] step(char empty, char you, char enemy);
+	/**
+	 * Make a move. Override either this method, or the allocation free
+	 * {@link #move(BoardView, char, char, char)}. The default implementation
+	 * makes no move.
+	 * @param empty The character of the empty cells.
+	 * @param you The character of the player.
+	 * @param enemy The character of the enemy.
+	 * @return The x and y coordinates of the move, or null for no move.
+	 */
+	protected int[] step(char empty, char you, char enemy) {
+		return null;
+	}
+
+	/**
+	 * Make a move, without allocating: the map can be read through the
+	 * {@link BoardView}, and the move is returned packed into an int. The
+	 * default implementation calls {@link #step(char, char, char)}, and
+	 * returns {@link Move#NONE} if its coordinates can not be packed.
+	 * @param board The read-only view of the map.
+	 * @param empty The character of the empty cells.
+	 * @param you The character of the player.
+	 * @param enemy The character of the enemy.
+	 * @return The move, packed with {@link Move#pack(int, int)}, or {@link
+	 * Move#NONE}.
+	 */
+	protected int move(BoardView board, char empty, char you, char enemy) {
+		int[] result = step(empty, you, enemy);
+		if (result == null || result.length < 2 || result[0] != (short) result[0] || result[1] != (short) result[1]) {
+			return Move.NONE;
+		}
+		return Move.pack(result[0], result[1]);
+	}
 
 	@Override
 	protected boolean finalise() {
@@ -0,0 +1,571 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import hu.hgj.improvedconfiguration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static Gomoku.PlayerHostProtocol.*;
+
+/**
+ * Hosts {@link Player}s in a process of their own, for the {@link
+ * Gomoku.Players.RemotePlayer}s of the simulator. A player leaking memory or
+ * calling System.exit() only takes down its host, that is started again by
+ * the {@link PlayerHostClient} for the next games. The host reads batches of
+ * requests from its standard input, and writes the responses to its standard
+ * output (see {@link PlayerHostProtocol}), so the players' own output is
+ * redirected to the standard error, and their standard input is empty.
+ * <p>
+ * The requests of the sessions of a batch are run in parallel (see {@link
+ * #serveBatch(List)}), and the requests of a session in their order. So a
+ * slow player only holds up the batch, not the other players' requests in
+ * it, and a batch takes about as long as its slowest session.
+ * <pre>java -cp Gomoku-1.6.0.jar:StrategySimulatorLibrary-1.6.0.jar:lib/* Gomoku.PlayerHost</pre>
+ */
+public class PlayerHost {
+
+	private static final Logger logger = LoggerFactory.getLogger(PlayerHost.class);
+
+	/**
+	 * The players of the host, by their session.
+	 */
+	private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * The workers running the requests of the sessions of a batch.
+	 */
+	private final ExecutorService workers = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger threads = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "player-host-worker-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	});
+
+	/**
+	 * A request read from a batch, and its response.
+	 */
+	private static class Request {
+
+		private final int id;
+
+		private final int operation;
+
+		/**
+		 * The payload of an {@link PlayerHostProtocol#OPEN}.
+		 */
+		private long playerID;
+
+		private String className;
+
+		private Configuration configuration;
+
+		/**
+		 * The payload of a {@link PlayerHostProtocol#STEP}: the map and the
+		 * characters, and the changed cells with their new characters.
+		 */
+		private int width;
+
+		private int height;
+
+		private char empty;
+
+		private char you;
+
+		private char enemy;
+
+		private int[] cells;
+
+		private char[] values;
+
+		private int status = ERROR;
+
+		private int move = Move.NONE;
+
+		private Request(int id, int operation) {
+			this.id = id;
+			this.operation = operation;
+		}
+
+	}
+
+	/**
+	 * A hosted player, and the map of its game as it was sent with its last
+	 * step. The session is the manager of the player, and the view of the
+	 * map.
+	 */
+	private static class Session implements PlayerManagerPlayerInterface, BoardView {
+
+		private final Player player;
+
+		private final long playerID;
+
+		private final Configuration configuration;
+
+		private char[] map = null;
+
+		private int width = 0;
+
+		private int height = 0;
+
+		private char emptyChar;
+
+		private char playerChar;
+
+		private char enemyChar;
+
+		private ForwardModel forwardModel = null;
+
+		private Session(Player player, long playerID, Configuration configuration) {
+			this.player = player;
+			this.playerID = playerID;
+			this.configuration = configuration;
+			player.setManager(this);
+		}
+
+		@Override
+		public long getPlayerID() {
+			return playerID;
+		}
+
+		@Override
+		public Configuration getConfiguration() {
+			return configuration;
+		}
+
+		@Override
+		public char getPlayerChar() {
+			return playerChar;
+		}
+
+		@Override
+		public int getMapWidth() {
+			return width;
+		}
+
+		@Override
+		public int getMapHeight() {
+			return height;
+		}
+
+		@Override
+		public char getMapAt(int x, int y) {
+			return isValidCoordinate(x, y) ? map[y * width + x] : emptyChar;
+		}
+
+		@Override
+		public char[][] getWholeMap() {
+			char[][] wholeMap = new char[width][height];
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					wholeMap[x][y] = map[y * width + x];
+				}
+			}
+			return wholeMap;
+		}
+
+		@Override
+		public boolean isValidCoordinate(int x, int y) {
+			return (x >= 0 && x < width) && (y >= 0 && y < height);
+		}
+
+		@Override
+		public BoardView getBoard() {
+			return this;
+		}
+
+		@Override
+		public ForwardModel getForwardModel() {
+			if (forwardModel == null || forwardModel.getWidth() != width || forwardModel.getHeight() != height) {
+				forwardModel = new ForwardModel(width, height);
+			}
+			forwardModel.load(this, playerChar);
+			return forwardModel;
+		}
+
+		@Override
+		public int getWidth() {
+			return width;
+		}
+
+		@Override
+		public int getHeight() {
+			return height;
+		}
+
+		@Override
+		public int getSize() {
+			return width * height;
+		}
+
+		@Override
+		public int index(int x, int y) {
+			return y * width + x;
+		}
+
+		@Override
+		public int getX(int index) {
+			return index % width;
+		}
+
+		@Override
+		public int getY(int index) {
+			return index / width;
+		}
+
+		@Override
+		public char get(int x, int y) {
+			return getMapAt(x, y);
+		}
+
+		@Override
+		public char get(int index) {
+			return map[index];
+		}
+
+		@Override
+		public boolean isEmpty(int index) {
+			return map[index] == emptyChar;
+		}
+
+	}
+
+	/**
+	 * Serve batches of requests until the input ends.
+	 * @param input The requests.
+	 * @param output The responses.
+	 * @throws IOException If the streams failed, or the requests are
+	 * malformed.
+	 */
+	public void serve(InputStream input, OutputStream output) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+		OutputStream out = new BufferedOutputStream(output, 64 * 1024);
+		List<Request> batch = new ArrayList<>();
+		while (true) {
+			int count;
+			try {
+				count = readInt(in);
+			} catch (EOFException e) {
+				logger.debug("The input ended, exiting.");
+				return;
+			}
+			for (int i = 0; i < count; i++) {
+				batch.add(readRequest(in));
+			}
+			serveBatch(batch);
+			writeVarint(out, count);
+			for (Request request : batch) {
+				out.write(request.status);
+				if (request.operation == STEP && request.status == TRUE) {
+					writeSigned(out, Move.getX(request.move));
+					writeSigned(out, Move.getY(request.move));
+				}
+			}
+			out.flush();
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Run the requests of a batch, and wait for all of them. The sessions of
+	 * the batch are taken one by one by the current thread and the workers.
+	 * Whoever takes a session starts a new worker first, if there are
+	 * sessions left, and no worker is waiting to start. So the quick players
+	 * are served on the current thread without being handed over, while
+	 * every slow player ends up with a worker of its own.
+	 */
+	private void serveBatch(List<Request> batch) {
+		Map<Integer, List<Request>> bySession = new LinkedHashMap<>();
+		for (Request request : batch) {
+			List<Request> requests = bySession.get(request.id);
+			if (requests == null) {
+				requests = new ArrayList<>();
+				bySession.put(request.id, requests);
+			}
+			requests.add(request);
+		}
+		BatchServer server = new BatchServer(new ArrayList<>(bySession.values()));
+		server.serve();
+		boolean interrupted = false;
+		while (true) {
+			try {
+				server.served.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (server.error.get() != null) {
+			throw server.error.get();
+		}
+	}
+
+	/**
+	 * The sessions of a batch, shared by the threads serving them, see {@link
+	 * #serveBatch(List)}.
+	 */
+	private class BatchServer implements Runnable {
+
+		private final List<List<Request>> sessionRequests;
+
+		private final AtomicInteger next = new AtomicInteger(0);
+
+		/**
+		 * The number of the workers submitted, but not started yet.
+		 */
+		private final AtomicInteger starting = new AtomicInteger(0);
+
+		private final CountDownLatch served;
+
+		/**
+		 * The first error of the players (their exceptions are caught by
+		 * {@link #serveRequest(Request)}).
+		 */
+		private final AtomicReference<Error> error = new AtomicReference<>();
+
+		private BatchServer(List<List<Request>> sessionRequests) {
+			this.sessionRequests = sessionRequests;
+			this.served = new CountDownLatch(sessionRequests.size());
+		}
+
+		/**
+		 * Start serving the sessions on a worker.
+		 */
+		@Override
+		public void run() {
+			starting.decrementAndGet();
+			serve();
+		}
+
+		private void serve() {
+			int index;
+			while ((index = next.getAndIncrement()) < sessionRequests.size()) {
+				if (index + 1 < sessionRequests.size() && starting.compareAndSet(0, 1)) {
+					workers.execute(this);
+				}
+				try {
+					serveSession(sessionRequests.get(index));
+				} catch (Error e) {
+					error.compareAndSet(null, e);
+				} finally {
+					served.countDown();
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Run the requests of a session in their order.
+	 */
+	private void serveSession(List<Request> requests) {
+		for (Request request : requests) {
+			serveRequest(request);
+		}
+	}
+
+	/**
+	 * Call the player of a request, and set its response.
+	 */
+	private void serveRequest(Request request) {
+		int id = request.id;
+		Session session = sessions.get(id);
+		int status = ERROR;
+		try {
+			switch (request.operation) {
+				case OPEN:
+					try {
+						Player player = Class.forName(request.className).asSubclass(Player.class).newInstance();
+						sessions.put(id, new Session(player, request.playerID, request.configuration));
+						status = TRUE;
+					} catch (ReflectiveOperationException | ClassCastException e) {
+						logger.error("Could not create a player of the class {}.", request.className, e);
+					}
+					break;
+				case RESET:
+					status = session == null ? ERROR : session.player.reset() ? TRUE : FALSE;
+					break;
+				case INITIALISE:
+					status = session == null ? ERROR : session.player.initialise() ? TRUE : FALSE;
+					break;
+				case STEP:
+					if (session != null) {
+						applyMap(request, session);
+						request.move = session.player.move(session, session.emptyChar, session.playerChar, session.enemyChar);
+						status = TRUE;
+					}
+					break;
+				case FINALISE:
+					status = session == null ? ERROR : session.player.finalise() ? TRUE : FALSE;
+					break;
+				case CLOSE:
+					status = sessions.remove(id) != null ? TRUE : ERROR;
+					break;
+			}
+		} catch (RuntimeException e) {
+			logger.error("The player of session {} failed.", id, e);
+			status = ERROR;
+		}
+		if (status == ERROR && session == null && request.operation != OPEN && request.operation != CLOSE) {
+			logger.warn("No session {} for operation {}.", id, request.operation);
+		}
+		request.status = status;
+	}
+
+	/**
+	 * Read a request with its payload.
+	 */
+	private static Request readRequest(DataInputStream in) throws IOException {
+		Request request = new Request(readInt(in), in.readUnsignedByte());
+		switch (request.operation) {
+			case OPEN:
+				request.playerID = readVarint(in);
+				request.className = readString(in);
+				request.configuration = readConfiguration(in);
+				break;
+			case STEP:
+				readMap(in, request);
+				break;
+			case RESET:
+			case INITIALISE:
+			case FINALISE:
+			case CLOSE:
+				break;
+			default:
+				throw new IOException("Unknown operation: " + request.operation);
+		}
+		return request;
+	}
+
+	/**
+	 * Read the changes of the map of a step.
+	 */
+	private static void readMap(DataInputStream in, Request request) throws IOException {
+		int width = readInt(in);
+		int height = readInt(in);
+		char empty = (char) readInt(in);
+		char you = (char) readInt(in);
+		char enemy = (char) readInt(in);
+		int changes = readInt(in);
+		int[] cells = new int[changes];
+		char[] values = new char[changes];
+		int index = 0;
+		for (int i = 0; i < changes; i++) {
+			long change = readVarint(in);
+			index += (int) (change >>> 2);
+			switch ((int) (change & 3)) {
+				case EMPTY:
+					values[i] = empty;
+					break;
+				case YOU:
+					values[i] = you;
+					break;
+				case ENEMY:
+					values[i] = enemy;
+					break;
+				default:
+					values[i] = (char) readInt(in);
+			}
+			if (index < 0 || index >= width * height) {
+				throw new IOException("Cell out of the map: " + index);
+			}
+			cells[i] = index;
+		}
+		request.width = width;
+		request.height = height;
+		request.empty = empty;
+		request.you = you;
+		request.enemy = enemy;
+		request.cells = cells;
+		request.values = values;
+	}
+
+	/**
+	 * Apply the changes of the map of a step to the map of its session.
+	 */
+	private static void applyMap(Request request, Session session) {
+		if (session.map == null || session.width != request.width || session.height != request.height) {
+			session.map = new char[request.width * request.height];
+			Arrays.fill(session.map, request.empty);
+			session.width = request.width;
+			session.height = request.height;
+		}
+		session.emptyChar = request.empty;
+		session.playerChar = request.you;
+		session.enemyChar = request.enemy;
+		for (int i = 0; i < request.cells.length; i++) {
+			session.map[request.cells[i]] = request.values[i];
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Configuration readConfiguration(DataInputStream in) throws IOException {
+		HashMap<String, String> entries = new HashMap<>();
+		int count = readInt(in);
+		for (int i = 0; i < count; i++) {
+			String key = readString(in);
+			entries.put(key, readString(in));
+		}
+		return new Configuration(entries);
+	}
+
+	public static void main(String[] args) throws IOException {
+		// The players may print, but not into the responses
+		OutputStream output = new FileOutputStream(FileDescriptor.out);
+		InputStream input = new FileInputStream(FileDescriptor.in);
+		System.setOut(System.err);
+		System.setIn(new ByteArrayInputStream(new byte[0]));
+		new PlayerHost().serve(input, output);
+	}
+
+}
@@ -0,0 +1,575 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import hu.hgj.improvedconfiguration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static Gomoku.PlayerHostProtocol.*;
+
+/**
+ * The connection of the simulator to a {@link PlayerHost} process, shared by
+ * all the {@link Gomoku.Players.RemotePlayer}s using the same host command,
+ * see {@link #get(List)}. The players queue their requests, and a single
+ * thread sends all the queued requests to the host in one batch, and
+ * distributes the responses. While the host is busy with a batch, the
+ * requests of the other games are collected for the next one, so the more
+ * games are played at once, the fewer round-trips are made per step.
+ * <p>
+ * If the host exits (or fails), the requests of its last batch fail, and a
+ * new host is started for the next batch. The sessions of the old host are
+ * lost: their players fail every request until they are opened again (see
+ * {@link Session#isAlive()}). A host not answering a batch within the
+ * timeout of the client (see {@link #setTimeout(long)}) is stopped by a
+ * watchdog, so a hung player fails the games of the batch, instead of
+ * blocking all the games sharing the host forever.
+ */
+public class PlayerHostClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(PlayerHostClient.class);
+
+	/**
+	 * The clients by their host commands.
+	 */
+	private static final Map<List<String>, PlayerHostClient> clients = new HashMap<>();
+
+	private static final AtomicInteger clientCount = new AtomicInteger(0);
+
+	static {
+		// A host with a hung player would outlive the simulator
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (clients) {
+					for (PlayerHostClient client : clients.values()) {
+						Process host = client.process;
+						if (host != null) {
+							host.destroy();
+						}
+					}
+				}
+			}
+		}, "player-host-shutdown"));
+	}
+
+	/**
+	 * The watchdogs of the batches of all the clients.
+	 */
+	private static final ScheduledExecutorService watchdogs = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "player-host-watchdog");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private final List<String> command;
+
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+
+	private final AtomicInteger nextSession = new AtomicInteger(1);
+
+	/**
+	 * The number of the hosts started so far. The sessions are only valid on
+	 * the host they were opened on.
+	 */
+	private volatile int generation = 0;
+
+	/**
+	 * The sessions, that are not used anymore, so they can be closed on the
+	 * host.
+	 */
+	private final ReferenceQueue<Session> unusedSessions = new ReferenceQueue<>();
+
+	/**
+	 * The references of the open sessions, kept until they are enqueued.
+	 */
+	private final Set<SessionReference> sessionReferences = Collections.newSetFromMap(new ConcurrentHashMap<SessionReference, Boolean>());
+
+	private volatile Process process = null;
+
+	private OutputStream out = null;
+
+	private InputStream in = null;
+
+	/**
+	 * The time a host has to answer a batch in milliseconds, 0 for no limit,
+	 * or -1 if it was not set yet (no limit).
+	 */
+	private volatile long timeout = -1;
+
+	private volatile long batches = 0;
+
+	private volatile long requests = 0;
+
+	/**
+	 * A request and its response.
+	 */
+	private static class Request {
+
+		private final int operation;
+
+		private final byte[] bytes;
+
+		private final CountDownLatch done;
+
+		private int generation;
+
+		private int status = ERROR;
+
+		private int x;
+
+		private int y;
+
+		private Request(int operation, byte[] bytes, boolean awaited) {
+			this.operation = operation;
+			this.bytes = bytes;
+			this.done = awaited ? new CountDownLatch(1) : null;
+		}
+
+	}
+
+	private static class SessionReference extends PhantomReference<Session> {
+
+		private final int id;
+
+		private final int generation;
+
+		private SessionReference(Session session, ReferenceQueue<Session> queue) {
+			super(session, queue);
+			this.id = session.id;
+			this.generation = session.generation;
+		}
+
+	}
+
+	/**
+	 * A player on the host. A session should only be used by one thread at a
+	 * time.
+	 */
+	public class Session {
+
+		private final int id;
+
+		private final int generation;
+
+		/**
+		 * The map as it was sent with the last step.
+		 */
+		private char[] map = null;
+
+		private int width = 0;
+
+		private int height = 0;
+
+		private Session(int id, int generation) {
+			this.id = id;
+			this.generation = generation;
+		}
+
+		/**
+		 * @return True if the host of the session is still running. The
+		 * requests of a dead session fail without being sent.
+		 */
+		public boolean isAlive() {
+			return generation == PlayerHostClient.this.generation;
+		}
+
+		public boolean reset() {
+			return call(RESET);
+		}
+
+		public boolean initialise() {
+			return call(INITIALISE);
+		}
+
+		public boolean finalise() {
+			return call(FINALISE);
+		}
+
+		/**
+		 * Step the player on the host, sending the changes of the map since
+		 * the last step.
+		 * @param board The map.
+		 * @param empty The empty character.
+		 * @param you The player's character.
+		 * @param enemy The enemy's character.
+		 * @return The packed move of the player, or {@link Move#NONE} if it
+		 * failed.
+		 */
+		public int step(BoardView board, char empty, char you, char enemy) {
+			if (!isAlive()) {
+				return Move.NONE;
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			ByteArrayOutputStream changes = new ByteArrayOutputStream(64);
+			try {
+				writeVarint(bytes, id);
+				bytes.write(STEP);
+				int width = board.getWidth();
+				int height = board.getHeight();
+				writeVarint(bytes, width);
+				writeVarint(bytes, height);
+				writeVarint(bytes, empty);
+				writeVarint(bytes, you);
+				writeVarint(bytes, enemy);
+				if (map == null || this.width != width || this.height != height) {
+					map = new char[width * height];
+					Arrays.fill(map, empty);
+					this.width = width;
+					this.height = height;
+				}
+				int count = 0;
+				int previous = 0;
+				for (int index = 0; index < map.length; index++) {
+					char cell = board.get(index);
+					if (cell != map[index]) {
+						map[index] = cell;
+						int code = cell == empty ? EMPTY : cell == you ? YOU : cell == enemy ? ENEMY : OTHER;
+						writeVarint(changes, ((long) (index - previous) << 2) | code);
+						if (code == OTHER) {
+							writeVarint(changes, cell);
+						}
+						previous = index;
+						count++;
+					}
+				}
+				writeVarint(bytes, count);
+				changes.writeTo(bytes);
+			} catch (IOException e) {
+				// Not thrown by a ByteArrayOutputStream
+				throw new IllegalStateException(e);
+			}
+			Request request = submit(new Request(STEP, bytes.toByteArray(), true));
+			if (request == null || request.status != TRUE) {
+				return Move.NONE;
+			}
+			return Move.pack(request.x, request.y);
+		}
+
+		private boolean call(int operation) {
+			if (!isAlive()) {
+				return false;
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+			try {
+				writeVarint(bytes, id);
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+			bytes.write(operation);
+			Request request = submit(new Request(operation, bytes.toByteArray(), true));
+			return request != null && request.status == TRUE;
+		}
+
+	}
+
+	private PlayerHostClient(List<String> command) {
+		this.command = command;
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				exchangeBatches();
+			}
+		}, "player-host-" + clientCount.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Get the client of a host command. The host is started with the first
+	 * request.
+	 * @param command The command starting the host.
+	 * @return The client shared by all the players using the command.
+	 */
+	public static PlayerHostClient get(List<String> command) {
+		synchronized (clients) {
+			PlayerHostClient client = clients.get(command);
+			if (client == null) {
+				client = new PlayerHostClient(new ArrayList<>(command));
+				clients.put(client.command, client);
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * The command starting a host with the same JVM and the same classes as
+	 * the simulator: the game jar, the library, SLF4J (and its binding) and
+	 * ImprovedConfiguration.
+	 * @return The default host command.
+	 * @throws IllegalStateException If the classes were not loaded from files
+	 * (jars or directories), so the class path can not be found.
+	 */
+	public static List<String> getDefaultCommand() {
+		Set<String> classPath = new LinkedHashSet<>();
+		addCodeSource(classPath, PlayerHost.class);
+		addCodeSource(classPath, StrategySimulator.Library.Player.class);
+		addCodeSource(classPath, LoggerFactory.class);
+		addCodeSource(classPath, Configuration.class);
+		try {
+			addCodeSource(classPath, Class.forName("org.slf4j.impl.StaticLoggerBinder"));
+		} catch (ClassNotFoundException e) {
+			// No binding, the host logs nothing
+		}
+		StringBuilder path = new StringBuilder();
+		for (String entry : classPath) {
+			path.append(path.length() > 0 ? File.pathSeparator : "").append(entry);
+		}
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		return Arrays.asList(java, "-cp", path.toString(), PlayerHost.class.getName());
+	}
+
+	private static void addCodeSource(Set<String> classPath, Class<?> cls) {
+		CodeSource source = cls.getProtectionDomain().getCodeSource();
+		URL location = source != null ? source.getLocation() : null;
+		if (location == null) {
+			throw new IllegalStateException("Can not find the class path of " + cls.getName() + ", set the host command.");
+		}
+		try {
+			classPath.add(new File(location.toURI()).getPath());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			throw new IllegalStateException("Can not find the class path of " + cls.getName() + ", set the host command.", e);
+		}
+	}
+
+	/**
+	 * Create a player on the host.
+	 * @param className The fully qualified name of the class of the player.
+	 * @param playerID The ID of the player.
+	 * @param configuration The configuration of the player.
+	 * @return The session of the player, or null if it could not be created.
+	 */
+	public Session open(String className, long playerID, Configuration configuration) {
+		int id = nextSession.getAndIncrement();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try {
+			writeVarint(bytes, id);
+			bytes.write(OPEN);
+			writeVarint(bytes, playerID);
+			writeString(bytes, className);
+			Map<String, String> entries = configuration.getEntries();
+			String prefix = configuration.getPrefix() != null ? configuration.getPrefix() : "";
+			writeVarint(bytes, entries.size());
+			for (Map.Entry<String, String> entry : entries.entrySet()) {
+				writeString(bytes, entry.getKey().startsWith(prefix) ? entry.getKey().substring(prefix.length()) : entry.getKey());
+				writeString(bytes, entry.getValue());
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		Request request = submit(new Request(OPEN, bytes.toByteArray(), true));
+		if (request == null || request.status != TRUE) {
+			return null;
+		}
+		Session session = new Session(id, request.generation);
+		sessionReferences.add(new SessionReference(session, unusedSessions));
+		return session;
+	}
+
+	/**
+	 * Set the time the host has to answer a batch. As the host is shared, the
+	 * longest timeout set by its players is kept. A host running out of it is
+	 * stopped, the requests of the batch fail, and a new host is started for
+	 * the next batch.
+	 * @param milliseconds The timeout of a batch, or 0 for no limit.
+	 */
+	public synchronized void setTimeout(long milliseconds) {
+		milliseconds = Math.max(0, milliseconds);
+		if (timeout < 0 || (timeout > 0 && (milliseconds == 0 || milliseconds > timeout))) {
+			timeout = milliseconds;
+		}
+	}
+
+	/**
+	 * @return The number of the batches sent to the hosts.
+	 */
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * @return The number of the requests sent to the hosts.
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	private static void writeString(OutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Queue a request, and wait for its response.
+	 * @return The request with its response, or null if the waiting thread
+	 * was interrupted (the request is still sent).
+	 */
+	private Request submit(Request request) {
+		queue.add(request);
+		try {
+			request.done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		return request;
+	}
+
+	/**
+	 * The loop of the thread of the client, sending the queued requests and
+	 * the closing of the unused sessions in batches.
+	 */
+	private void exchangeBatches() {
+		List<Request> batch = new ArrayList<>();
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				return;
+			}
+			queue.drainTo(batch);
+			Reference<? extends Session> reference;
+			while ((reference = unusedSessions.poll()) != null) {
+				SessionReference sessionReference = (SessionReference) reference;
+				sessionReferences.remove(sessionReference);
+				if (sessionReference.generation == generation) {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+					try {
+						writeVarint(bytes, sessionReference.id);
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+					bytes.write(CLOSE);
+					batch.add(new Request(CLOSE, bytes.toByteArray(), false));
+				}
+			}
+			try {
+				exchange(batch);
+			} catch (IOException e) {
+				logger.error("The player host failed, {} requests failed with it.", batch.size(), e);
+				stopHost();
+			}
+			for (Request request : batch) {
+				if (request.done != null) {
+					request.done.countDown();
+				}
+			}
+			batch.clear();
+		}
+	}
+
+	private void exchange(List<Request> batch) throws IOException {
+		if (process == null) {
+			startHost();
+		}
+		ScheduledFuture<?> watchdog = null;
+		final long timeout = this.timeout;
+		if (timeout > 0) {
+			final Process host = process;
+			watchdog = watchdogs.schedule(new Runnable() {
+				@Override
+				public void run() {
+					logger.warn("The player host did not answer in {} ms, stopping it.", timeout);
+					host.destroy();
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+		}
+		try {
+			writeVarint(out, batch.size());
+			for (Request request : batch) {
+				request.generation = generation;
+				out.write(request.bytes);
+			}
+			out.flush();
+			batches++;
+			requests += batch.size();
+			if (readInt(in) != batch.size()) {
+				throw new IOException("The host answered a different number of requests.");
+			}
+			for (Request request : batch) {
+				int status = in.read();
+				if (status < 0) {
+					throw new EOFException("The host exited.");
+				}
+				if (request.operation == STEP && status == TRUE) {
+					request.x = readSigned(in);
+					request.y = readSigned(in);
+				}
+				request.status = status;
+			}
+		} finally {
+			if (watchdog != null && !watchdog.cancel(false)) {
+				// The host is being stopped, even if it answered just in time
+				stopHost();
+			}
+		}
+	}
+
+	private void startHost() throws IOException {
+		logger.info("Starting the player host: {}", command);
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+		process = builder.start();
+		generation++;
+		out = new BufferedOutputStream(process.getOutputStream(), 64 * 1024);
+		in = new BufferedInputStream(process.getInputStream(), 64 * 1024);
+	}
+
+	private void stopHost() {
+		if (process != null) {
+			process.destroy();
+			process = null;
+		}
+		// The sessions of the host are lost, even if it could not be started
+		generation++;
+	}
+
+}
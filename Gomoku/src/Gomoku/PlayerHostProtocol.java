@@ -0,0 +1,109 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import Gomoku.Records.GameRecord;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The binary protocol between the {@link PlayerHostClient} and the {@link
+ * PlayerHost}, over the standard input and output of the host process.
+ * <ul>
+ * <li>The client sends batches of requests: the number of the requests, then
+ * the requests, each with its session, its operation and its payload.</li>
+ * <li>The host answers every batch with a batch of responses, in the order
+ * of the requests: the number of the responses, then the responses, each
+ * with its status, and the move (x and y zigzag encoded) after a successful
+ * {@link #STEP}.</li>
+ * <li>{@link #OPEN} creates the player of a session: its payload is the
+ * player ID, the length and the UTF-8 bytes of the name of the player's
+ * class, then the configuration of the player: the number of its entries,
+ * and for every entry its key (without the prefix of the player) and its
+ * value, both as a length and UTF-8 bytes.</li>
+ * <li>{@link #STEP} sends the changes of the map since the last step of the
+ * session: the width and the height of the map, the empty, the player's and
+ * the enemy's character, the number of the changed cells, then for every
+ * changed cell the distance from the previous changed cell shifted left by
+ * two, plus the code of the new character ({@link #EMPTY}, {@link #YOU},
+ * {@link #ENEMY} or {@link #OTHER} followed by the character). A new map
+ * (or a map of a new size) is filled with the empty character.</li>
+ * <li>The other operations have no payload.</li>
+ * <li>All the numbers are unsigned varints, just like in the {@link
+ * Gomoku.Records} files.</li>
+ * </ul>
+ */
+final class PlayerHostProtocol {
+
+	static final int OPEN = 1;
+	static final int RESET = 2;
+	static final int INITIALISE = 3;
+	static final int STEP = 4;
+	static final int FINALISE = 5;
+	static final int CLOSE = 6;
+
+	static final int FALSE = 0;
+	static final int TRUE = 1;
+	static final int ERROR = 2;
+
+	static final int EMPTY = 0;
+	static final int YOU = 1;
+	static final int ENEMY = 2;
+	static final int OTHER = 3;
+
+	private PlayerHostProtocol() {
+	}
+
+	static void writeVarint(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	static long readVarint(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("The stream ended within a varint.");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint.");
+	}
+
+	static int readInt(InputStream in) throws IOException {
+		long value = readVarint(in);
+		if (value > Integer.MAX_VALUE) {
+			throw new IOException("Number out of range: " + value);
+		}
+		return (int) value;
+	}
+
+	static void writeSigned(OutputStream out, int value) throws IOException {
+		writeVarint(out, GameRecord.zigZag(value) & 0xFFFFFFFFL);
+	}
+
+	static int readSigned(InputStream in) throws IOException {
+		return GameRecord.unZigZag((int) readVarint(in));
+	}
+
+}
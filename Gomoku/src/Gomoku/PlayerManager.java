@@ -14,9 +14,17 @@ package Gomoku;
 
 import hu.hgj.improvedconfiguration.Configuration;
 
+import java.util.concurrent.Callable;
+
 /**
- * Implementation of the {@link StrategySimulator.Library.PlayerManager}, with
- * no extra functionality at all.
+ * Implementation of the {@link StrategySimulator.Library.PlayerManager} for
+ * Gomoku. It gives the {@link Player} the game through the {@link
+ * PlayerManagerPlayerInterface}: the map, the read-only {@link BoardView} of
+ * the board, and a {@link ForwardModel} of the position to search (see
+ * {@link #getForwardModel()}). The player is stepped within its time budget,
+ * and a timed out player forfeits the game or has the default move of the
+ * game made instead, depending on its 'timeout.action' (see {@link
+ * #stepPlayer()}).
  */
 public class PlayerManager extends StrategySimulator.Library.PlayerManager
 		implements PlayerManagerPlayerInterface {
@@ -29,6 +37,46 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 
 	protected char enemyChar;
 
+	/**
+	 * The cached identity of the player, and the character it was made with.
+	 */
+	private String playerIdentity = null;
+	private char playerIdentityChar;
+
+	/**
+	 * The call of the player's step, with its arguments and its result.
+	 */
+	private final class StepCall implements Callable<Void> {
+
+		private char empty;
+
+		private char you;
+
+		private char enemy;
+
+		private int move = Move.NONE;
+
+		@Override
+		public Void call() {
+			move = player.move(gameLogic.boardView, empty, you, enemy);
+			return null;
+		}
+
+	}
+
+	/**
+	 * The step call reused for every step made on the current thread. A step
+	 * with a time budget gets a new call, as a timed out call may still set
+	 * its move later.
+	 */
+	private final StepCall stepCall = new StepCall();
+
+	/**
+	 * The forward model of the player, created with the first call of
+	 * {@link #getForwardModel()}, or when the size of the map changes.
+	 */
+	private ForwardModel forwardModel = null;
+
 	/**
 	 * The constructor just calls the parent's.
 	 * @param superPlayer The {@link StrategySimulator.Library.Player} to be
@@ -45,11 +93,15 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 
 	@Override
 	public String getPlayerIdentity() {
-		return super.getPlayerIdentity() + "(" + playerChar + ")";
+		if (playerIdentity == null || playerIdentityChar != playerChar) {
+			playerIdentity = super.getPlayerIdentity() + "(" + playerChar + ")";
+			playerIdentityChar = playerChar;
+		}
+		return playerIdentity;
 	}
 
 	@Override
-	public void setGameLogic(StrategySimulator.Library.GameLogic superGameLogic) {
+	public void setGameLogic(StrategySimulator.Library.GameLogic<?> superGameLogic) {
 		super.setGameLogic(superGameLogic);
 		gameLogic = (GameLogic) superGameLogic;
 	}
@@ -84,6 +136,21 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 		return gameLogic.isValidCoordinate(x, y);
 	}
 
+	@Override
+	public BoardView getBoard() {
+		return gameLogic.boardView;
+	}
+
+	@Override
+	public ForwardModel getForwardModel() {
+		Board board = gameLogic.board;
+		if (forwardModel == null || forwardModel.getWidth() != board.width || forwardModel.getHeight() != board.height) {
+			forwardModel = new ForwardModel(board.width, board.height);
+		}
+		forwardModel.load(board, gameLogic.getPlayerManager(2) == this ? 2 : 1);
+		return forwardModel;
+	}
+
 	@Override
 	public boolean resetPlayer() {
 		if (configuration.get("character") != null) {
@@ -91,19 +158,35 @@ public class PlayerManager extends StrategySimulator.Library.PlayerManager
 		} else {
 			return false;
 		}
+		if (!player.isMoving()) {
+			logger.error("Player {} should override step() or move().", getPlayerIdentity());
+			return false;
+		}
 		return super.resetPlayer();
 	}
 
 	/**
-	 * Step the player. This is a method you should replace with your custom
-	 * stepping mechanism.
-	 * @return True on success, false otherwise.
+	 * Step the player within its time budget. If the player is timed out, it
+	 * forfeits the game (see {@link GameLogic#stepGame()}), or the default
+	 * move of the game is made instead, depending on its 'timeout.action'.
+	 * @return The packed coordinates of the move (see {@link Move}).
 	 */
-	protected int[] stepPlayer() {
+	protected int stepPlayer() {
 		logger.debug("Stepping the player.");
-		return player.step(
-				gameLogic.emptyChar,
-				playerChar,
-				enemyChar);
+		StepCall call = hasTimeBudget() ? new StepCall() : stepCall;
+		call.empty = gameLogic.emptyChar;
+		call.you = playerChar;
+		call.enemy = enemyChar;
+		call.move = Move.NONE;
+		callPlayer(call);
+		if (isTimedOut()) {
+			if (getTimeoutAction() == TimeoutAction.MOVE) {
+				int defaultMove = gameLogic.getDefaultMove();
+				logger.info("Player {} timed out, moving to {} instead.", getPlayerIdentity(), Move.toString(defaultMove));
+				return defaultMove;
+			}
+			return Move.NONE;
+		}
+		return call.move;
 	}
 }
@@ -31,4 +31,19 @@ public interface PlayerManagerPlayerInterface
 
 	public boolean isValidCoordinate(int x, int y);
 
+	/**
+	 * Get the read-only view of the map, that is much cheaper to probe than
+	 * {@link #getMapAt(int, int)} or {@link #getWholeMap()}.
+	 * @return The view of the map, valid for the whole game.
+	 */
+	public BoardView getBoard();
+
+	/**
+	 * Get the player's own {@link ForwardModel}, loaded with the current map,
+	 * with the player on move. The same model is loaded again and returned
+	 * on every call, so the moves made on it are lost with the next call.
+	 * @return The forward model of the player.
+	 */
+	public ForwardModel getForwardModel();
+
 }
@@ -0,0 +1,101 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import Gomoku.ForwardModel;
+import Gomoku.WindowEvaluator;
+import StrategySimulator.Library.Search.AlphaBetaSearch;
+import StrategySimulator.Library.Search.SearchEngine;
+import StrategySimulator.Library.Search.TranspositionTable;
+import hu.hgj.improvedconfiguration.Configuration;
+
+import static Gomoku.Players.PlayerUtilities.*;
+
+/**
+ * A reference player searching the game tree with iterative deepening
+ * alpha-beta (negamax) search, to benchmark other players against, and to
+ * load the simulator with a CPU bound player. It is the {@link SearchPlayer}
+ * with the {@link AlphaBetaSearch} of the library on one thread, searching
+ * the {@link ForwardModel} of the player, evaluated by the {@link
+ * WindowEvaluator}:
+ * <ul>
+ * <li>The position is evaluated by every five cells in a row on the board
+ * (a window): a window with the stones of only one of the players is worth
+ * more the more stones it has, and a window filled by a player is a
+ * win.</li>
+ * <li>The searched positions are stored in a fixed-size {@link
+ * TranspositionTable}, shared by all the players using the same size.</li>
+ * <li>Only the empty cells at most two cells away from a stone are searched,
+ * ordered by the best move of the position in the table, the killer moves of
+ * the ply, the history of the cutoffs of the cell, and the windows the move
+ * makes or blocks.</li>
+ * <li>Every move is searched deeper and deeper, until the budget runs out.
+ * The budget is hard: the search is aborted, and the best move of the last
+ * (or the aborted) iteration is made.</li>
+ * </ul>
+ * The player is configured with the entries of the player in the game
+ * configuration file:
+ * <ul>
+ * <li>'alphabeta.time': The time budget of a move in milliseconds, 0 for no
+ * limit (defaults to 100). Should be well below 'timeout.move'.</li>
+ * <li>'alphabeta.nodes': The node budget of a move, 0 for no limit (defaults
+ * to 0). One of the budgets has to be set.</li>
+ * <li>'alphabeta.depth': The maximal depth of the search in plies (defaults
+ * to 64, which is also the most).</li>
+ * <li>'alphabeta.table': The size of the transposition table as a power of
+ * two (defaults to 20, that is 16 MiB).</li>
+ * </ul>
+ * The number of the searched nodes and the nodes per second are logged with
+ * every move at debug level, and for every game at info level (see also
+ * {@link #getNodes()} and {@link #getNodesPerSecond()}).
+ */
+public class AlphaBetaPlayer extends SearchPlayer {
+
+	@Override
+	protected SearchEngine<ForwardModel> createEngine(Configuration configuration) {
+		int time = getInteger(configuration, "alphabeta.time", 100);
+		long nodes = getInteger(configuration, "alphabeta.nodes", 0);
+		int bits = getInteger(configuration, "alphabeta.table", 20);
+		if (time <= 0 && nodes <= 0) {
+			logger.error("The alpha-beta player needs a time (alphabeta.time) or a node (alphabeta.nodes) budget.");
+			return null;
+		}
+		if (bits < 1 || bits > 30) {
+			logger.error("The size of the transposition table (alphabeta.table) should be between 1 and 30.");
+			return null;
+		}
+		WindowEvaluator evaluator = new WindowEvaluator();
+		AlphaBetaSearch<ForwardModel> search = new AlphaBetaSearch<>(evaluator, TranspositionTable.getShared(bits));
+		search.setMoveOrdering(evaluator);
+		search.setTimeBudget(time);
+		search.setNodeBudget(nodes);
+		search.setMaxDepth(getInteger(configuration, "alphabeta.depth", AlphaBetaSearch.MAX_DEPTH));
+		return search;
+	}
+
+	/**
+	 * @return The number of the nodes searched in the game so far.
+	 */
+	public long getNodes() {
+		return getEngine().getSearched();
+	}
+
+	/**
+	 * @return The number of the nodes searched in a second in the game so
+	 * far.
+	 */
+	public long getNodesPerSecond() {
+		return perSecond(getEngine().getSearched(), getEngine().getSearchTime());
+	}
+
+}
@@ -12,43 +12,40 @@
 
 package Gomoku.Players;
 
+import Gomoku.MapRenderer;
 import Gomoku.Player;
 
 import java.util.Scanner;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class HumanPlayer extends Player {
 
 	protected static Scanner inputScanner = new Scanner(System.in);
 
+	/**
+	 * Guards the console, so a human playing many games at once (on many
+	 * threads) gets the question and the map of one game at a time. A lock
+	 * instead of synchronized, so a virtual thread waiting for the answer
+	 * does not pin its carrier thread.
+	 */
+	protected static final Lock consoleLock = new ReentrantLock();
+
+	protected MapRenderer mapRenderer = null;
+
 	@Override
 	protected int[] step(char empty, char you, char enemy) {
 		int[] result = new int[2];
 		// Print the map
-		System.err.flush();
-		System.out.flush();
-		for (int y = manager.getMapHeight() - 1; y >= 0; y--) {
-			if (y > 9) {
-				System.out.print(y + " ");
-			} else {
-				System.out.print(y + "  ");
-			}
-			for (int x = 0; x < manager.getMapWidth(); x++) {
-				System.out.print(manager.getMapAt(x, y) + " ");
-			}
-			System.out.println();
-		}
-		System.out.println();
-		System.out.print("   ");
-		for (int x = 0; x < manager.getMapWidth(); x++) {
-			if (x > 9) {
-				System.out.print(x);
-			} else {
-				System.out.print(x + " ");
-			}
+		if (mapRenderer == null) {
+			mapRenderer = new MapRenderer(manager, true);
 		}
-		System.out.println();
-		System.out.print("Where do you want to place your " + manager.getPlayerChar() + "? ");
+		consoleLock.lock();
 		try {
+			System.err.flush();
+			System.out.flush();
+			System.out.append(mapRenderer.render());
+			System.out.print("Where do you want to place your " + manager.getPlayerChar() + "? ");
 			Scanner answerScanner = new Scanner(inputScanner.nextLine());
 			result[0] = answerScanner.nextInt();
 			result[1] = answerScanner.nextInt();
@@ -57,6 +54,8 @@ public class HumanPlayer extends Player {
 			logger.error("Could not read the answer! Returning some bullshit to the manager.");
 			result[0] = result[1] = -1;
 			return result;
+		} finally {
+			consoleLock.unlock();
 		}
 		logger.info("Human says we should place our {} at {},{}.", manager.getPlayerChar(), result[0], result[1]);
 		return result;
@@ -0,0 +1,113 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import Gomoku.ForwardModel;
+import StrategySimulator.Library.Search.MonteCarloSearch;
+import StrategySimulator.Library.Search.SearchEngine;
+import hu.hgj.improvedconfiguration.Configuration;
+
+import static Gomoku.Players.PlayerUtilities.*;
+
+/**
+ * A player searching with Monte Carlo tree search: the moves are tried by
+ * random games (playouts) played to the end, and the tree of the positions
+ * grows towards the moves that win the most (UCT). It is the {@link
+ * SearchPlayer} with the {@link MonteCarloSearch} of the library, searching
+ * the {@link ForwardModel} of the player:
+ * <ul>
+ * <li>The search is tree-parallel: the threads of a player share one tree,
+ * and every thread adds a virtual loss to the nodes it selects until its
+ * playout is done, so the other threads turn to other moves meanwhile. The
+ * nodes are updated with atomic operations, without locks.</li>
+ * <li>The playouts make and take back random moves on a copy of the model
+ * of every thread, and they do not allocate.</li>
+ * <li>A node is expanded with the empty cells at most two cells away from a
+ * stone. A move making five is always selected.</li>
+ * <li>After the enemy moved, the subtree of the position is kept as the tree
+ * of the next move, if it was searched.</li>
+ * </ul>
+ * The player is configured with the entries of the player in the game
+ * configuration file:
+ * <ul>
+ * <li>'mcts.time': The time budget of a move in milliseconds, 0 for no limit
+ * (defaults to 100). Should be well below 'timeout.move'.</li>
+ * <li>'mcts.playouts': The playout budget of a move, 0 for no limit
+ * (defaults to 0). At least one of the budgets should be set.</li>
+ * <li>'mcts.threads': The number of the threads searching a move, 0 for the
+ * number of the processors (defaults to 1).</li>
+ * <li>'mcts.exploration': The exploration constant of UCT (defaults to
+ * 1.0).</li>
+ * <li>'mcts.virtualloss': The number of the lost playouts added to a node
+ * selected by a thread, until its playout is done (defaults to 1).</li>
+ * <li>'mcts.expansion': The number of the visits of a node, before it is
+ * expanded (defaults to 2).</li>
+ * <li>'mcts.reuse': Keep the tree between the moves (defaults to true).</li>
+ * </ul>
+ * The number of the playouts and the playouts per second are logged with
+ * every move at debug level, and for every game at info level (see also
+ * {@link #getPlayouts()} and {@link #getPlayoutsPerSecond()}).
+ */
+public class MCTSPlayer extends SearchPlayer {
+
+	private MonteCarloSearch<ForwardModel> search = null;
+
+	@Override
+	protected SearchEngine<ForwardModel> createEngine(Configuration configuration) {
+		int time = getInteger(configuration, "mcts.time", 100);
+		long playouts = getInteger(configuration, "mcts.playouts", 0);
+		int virtualLoss = getInteger(configuration, "mcts.virtualloss", 1);
+		int expansion = getInteger(configuration, "mcts.expansion", 2);
+		if (time <= 0 && playouts <= 0) {
+			logger.error("The MCTS player needs a time (mcts.time) or a playout (mcts.playouts) budget.");
+			return null;
+		}
+		if (virtualLoss < 1 || expansion < 1) {
+			logger.error("The virtual loss (mcts.virtualloss) and the expansion (mcts.expansion) should be at least 1.");
+			return null;
+		}
+		String exploration = configuration != null ? configuration.get("mcts.exploration") : null;
+		Boolean reuse = configuration != null ? configuration.getBoolean("mcts.reuse") : null;
+		// The playouts are played to the end, so there is no evaluator
+		search = new MonteCarloSearch<>(null);
+		search.setTimeBudget(time);
+		search.setPlayoutBudget(playouts);
+		search.setThreads(getInteger(configuration, "mcts.threads", 1));
+		search.setExploration(exploration != null ? Double.parseDouble(exploration.trim()) : 1.0);
+		search.setVirtualLoss(virtualLoss);
+		search.setExpansion(expansion);
+		search.setReuse(reuse == null || reuse);
+		return search;
+	}
+
+	@Override
+	protected boolean finalise() {
+		search.clearTree();
+		return super.finalise();
+	}
+
+	/**
+	 * @return The number of the playouts in the game so far.
+	 */
+	public long getPlayouts() {
+		return search.getSearched();
+	}
+
+	/**
+	 * @return The number of the playouts in a second in the game so far.
+	 */
+	public long getPlayoutsPerSecond() {
+		return perSecond(search.getSearched(), search.getSearchTime());
+	}
+
+}
@@ -0,0 +1,52 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import hu.hgj.improvedconfiguration.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The helpers shared by the search players: reading their configuration, and
+ * the rates they log.
+ */
+final class PlayerUtilities {
+
+	private PlayerUtilities() {
+	}
+
+	/**
+	 * @param count The number of the things done (nodes or playouts).
+	 * @param nanos The time they took in nanoseconds.
+	 * @return The number of the things done in a second, or 0 if no time was
+	 * spent.
+	 */
+	static long perSecond(long count, long nanos) {
+		return nanos > 0 ? count * TimeUnit.SECONDS.toNanos(1) / nanos : 0;
+	}
+
+	/**
+	 * Get an integer entry of the configuration of a player.
+	 * @param configuration The configuration, or null.
+	 * @param key The key of the entry.
+	 * @param defaultValue The value if the entry (or the configuration) is
+	 * missing.
+	 * @return The value of the entry.
+	 * @throws NumberFormatException If the entry is not a number.
+	 */
+	static int getInteger(Configuration configuration, String key, int defaultValue) {
+		Integer value = configuration != null ? configuration.getInteger(key) : null;
+		return value != null ? value : defaultValue;
+	}
+
+}
@@ -0,0 +1,115 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import Gomoku.BoardView;
+import Gomoku.Move;
+import Gomoku.Player;
+import Gomoku.PlayerHost;
+import Gomoku.PlayerHostClient;
+import hu.hgj.improvedconfiguration.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A player running in a {@link PlayerHost} process, so it can not take down
+ * the simulator. The player is configured with the entries of the player in
+ * the game configuration file:
+ * <ul>
+ * <li>'remote.class': The class of the hosted player, in the Gomoku.Players
+ * package, or fully qualified (required).</li>
+ * <li>'remote.command': The command starting the host, separated by spaces
+ * (optional, defaults to the same JVM and class path as the simulator, see
+ * {@link PlayerHostClient#getDefaultCommand()}).</li>
+ * <li>'remote.timeout': The time the host has to answer a batch of requests
+ * in milliseconds, 0 for no limit (defaults to 10000). A host running out of
+ * it is stopped, and started again. The players sharing a host share the
+ * longest timeout of them.</li>
+ * </ul>
+ * All the remote players using the same command share one host, and the
+ * steps of their games are sent to it in batches. If the host exits, the
+ * games in progress are lost, and the player starts over on a new host with
+ * the next game.
+ * <p>
+ * The 'timeout.move' of the player is measured in the simulator, and
+ * includes the waiting for the host. A timed out step is not taken back
+ * from the host: the player stays busy (and its next steps time out at once)
+ * until the host answers the batch, or the 'remote.timeout' stops the host.
+ * So the 'remote.timeout' should be a little longer than the 'timeout.move'
+ * of the players sharing the host, to stop only the hosts with a hung
+ * player.
+ */
+public class RemotePlayer extends Player {
+
+	private PlayerHostClient client = null;
+
+	private PlayerHostClient.Session session = null;
+
+	/**
+	 * Open a session on the host, if there is no session yet, or its host
+	 * exited, then reset the hosted player.
+	 */
+	@Override
+	protected boolean reset() {
+		if (session == null || !session.isAlive()) {
+			Configuration configuration = manager.getConfiguration();
+			String className = configuration.get("remote.class");
+			if (className == null) {
+				logger.error("The class of the remote player (remote.class) is not set.");
+				return false;
+			}
+			if (client == null) {
+				String command = configuration.get("remote.command");
+				List<String> commandLine = command != null
+						? Arrays.asList(command.trim().split("\\s+"))
+						: PlayerHostClient.getDefaultCommand();
+				client = PlayerHostClient.get(commandLine);
+				Integer timeout = configuration.getInteger("remote.timeout");
+				client.setTimeout(timeout != null ? timeout : 10000);
+			}
+			session = client.open(className.contains(".") ? className : "Gomoku.Players." + className,
+					manager.getPlayerID(), configuration);
+			if (session == null) {
+				logger.error("Could not open the remote player {}.", className);
+				return false;
+			}
+		}
+		return session.reset();
+	}
+
+	@Override
+	protected boolean initialise() {
+		return session != null && session.initialise();
+	}
+
+	/**
+	 * Step the hosted player.
+	 * @return The move of the hosted player, or {@link Move#NONE} if it
+	 * failed.
+	 */
+	@Override
+	protected int move(BoardView board, char empty, char you, char enemy) {
+		int move = session != null ? session.step(board, empty, you, enemy) : Move.NONE;
+		if (move == Move.NONE) {
+			logger.warn("The remote player did not move.");
+		}
+		return move;
+	}
+
+	@Override
+	protected boolean finalise() {
+		return session != null && session.finalise();
+	}
+
+}
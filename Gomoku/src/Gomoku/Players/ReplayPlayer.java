@@ -0,0 +1,77 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import Gomoku.BoardView;
+import Gomoku.Move;
+import Gomoku.Player;
+import Gomoku.Records.GameRecord;
+
+/**
+ * A player that makes the moves of one of the players of a recorded game,
+ * see {@link Gomoku.Records.Replay}. It does no I/O at all, and it does not
+ * allocate while stepping.
+ */
+public class ReplayPlayer extends Player {
+
+	private GameRecord record = null;
+
+	/**
+	 * The number of the player in the record, so its moves are the (number -
+	 * 1)th, the (number + 1)th and so on.
+	 */
+	private int number = 1;
+
+	private int nextMove = 0;
+
+	/**
+	 * Set the game to replay. Should be called before the game is
+	 * initialised.
+	 * @param record The record of the game.
+	 * @param number The number of the player in the record (1 or 2).
+	 */
+	public void setRecord(GameRecord record, int number) {
+		this.record = record;
+		this.number = number;
+	}
+
+	@Override
+	protected boolean initialise() {
+		nextMove = number - 1;
+		return record != null;
+	}
+
+	/**
+	 * Make the next recorded move of the player.
+	 * @return The recorded move, or {@link Move#NONE} if the player has no
+	 * more moves.
+	 */
+	@Override
+	protected int move(BoardView board, char empty, char you, char enemy) {
+		if (nextMove < record.getMoveCount()) {
+			int move = Move.pack(record.getMoveX(nextMove), record.getMoveY(nextMove));
+			nextMove += 2;
+			return move;
+		}
+		logger.warn("The recorded game has no more moves for the player.");
+		return Move.NONE;
+	}
+
+	/**
+	 * @return The number of the recorded moves the player did not make yet.
+	 */
+	public int getRemainingMoves() {
+		return nextMove < record.getMoveCount() ? (record.getMoveCount() - nextMove + 1) / 2 : 0;
+	}
+
+}
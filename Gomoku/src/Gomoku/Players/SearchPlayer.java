@@ -0,0 +1,171 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Players;
+
+import Gomoku.BoardView;
+import Gomoku.ForwardModel;
+import Gomoku.Move;
+import Gomoku.Player;
+import Gomoku.WindowEvaluator;
+import StrategySimulator.Library.Search.AlphaBetaSearch;
+import StrategySimulator.Library.Search.GameState;
+import StrategySimulator.Library.Search.MonteCarloSearch;
+import StrategySimulator.Library.Search.SearchEngine;
+import StrategySimulator.Library.Search.TranspositionTable;
+import hu.hgj.improvedconfiguration.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+import static Gomoku.Players.PlayerUtilities.*;
+
+/**
+ * A player searching its {@link ForwardModel} with one of the generic search
+ * engines of the library ({@link AlphaBetaSearch} or {@link
+ * MonteCarloSearch}), evaluated by the {@link WindowEvaluator}. This is the
+ * way to build a search player for any game of the framework: the game
+ * provides the {@link GameState} and the evaluation, and the library the
+ * search.
+ * <p>
+ * The player is configured with the entries of the player in the game
+ * configuration file:
+ * <ul>
+ * <li>'search.engine': 'alphabeta' or 'mcts' (defaults to 'alphabeta').</li>
+ * <li>'search.time': The time budget of a move in milliseconds, 0 for no
+ * limit (defaults to 100). Should be well below 'timeout.move'.</li>
+ * <li>'search.threads': The number of the threads searching a move, 0 for
+ * the number of the processors (defaults to 1).</li>
+ * <li>'search.nodes': The node budget of an alpha-beta move, 0 for no limit
+ * (defaults to 0).</li>
+ * <li>'search.depth': The maximal depth of the alpha-beta search in plies
+ * (defaults to 64, which is also the most).</li>
+ * <li>'search.table': The size of the transposition table of the alpha-beta
+ * search as a power of two (defaults to 20, that is 16 MiB).</li>
+ * <li>'search.playouts': The playout budget of an MCTS move, 0 for no limit
+ * (defaults to 0).</li>
+ * <li>'search.exploration': The exploration constant of UCT (defaults to
+ * 1.0).</li>
+ * <li>'search.virtualloss': The virtual loss of MCTS (defaults to 1).</li>
+ * <li>'search.playoutdepth': The number of the random moves of an MCTS
+ * playout, before it is cut off and evaluated, 0 for no limit (defaults to
+ * 0).</li>
+ * </ul>
+ * The number of the searched nodes (or playouts) per second are logged with
+ * every move at debug level, and for every game at info level.
+ */
+public class SearchPlayer extends Player {
+
+	private SearchEngine<ForwardModel> engine = null;
+
+	@Override
+	protected boolean reset() {
+		try {
+			engine = createEngine(manager.getConfiguration());
+		} catch (IllegalArgumentException e) {
+			// Invalid numbers, and invalid table sizes
+			logger.error("Invalid search configuration: {}", e.getMessage());
+			engine = null;
+		}
+		return engine != null;
+	}
+
+	/**
+	 * Create the engine of the player on every reset, from the 'search.*'
+	 * entries of the configuration. The players built on this one can read
+	 * their own entries instead.
+	 * @param configuration The configuration of the player, or null.
+	 * @return The engine, or null if the configuration is invalid (the error
+	 * is logged).
+	 * @throws IllegalArgumentException If a number of the configuration is
+	 * invalid.
+	 */
+	protected SearchEngine<ForwardModel> createEngine(Configuration configuration) {
+		String name = configuration != null ? configuration.get("search.engine") : null;
+		String engineName = name != null ? name.trim().toLowerCase() : "alphabeta";
+		WindowEvaluator evaluator = new WindowEvaluator();
+		int time = getInteger(configuration, "search.time", 100);
+		int threads = getInteger(configuration, "search.threads", 1);
+		if (engineName.equals("alphabeta")) {
+			long nodes = getInteger(configuration, "search.nodes", 0);
+			int bits = getInteger(configuration, "search.table", 20);
+			if (time <= 0 && nodes <= 0) {
+				logger.error("The search player needs a time (search.time) or a node (search.nodes) budget.");
+				return null;
+			}
+			AlphaBetaSearch<ForwardModel> search = new AlphaBetaSearch<>(evaluator, TranspositionTable.getShared(bits));
+			search.setMoveOrdering(evaluator);
+			search.setTimeBudget(time);
+			search.setNodeBudget(nodes);
+			search.setMaxDepth(getInteger(configuration, "search.depth", AlphaBetaSearch.MAX_DEPTH));
+			search.setThreads(threads);
+			return search;
+		} else if (engineName.equals("mcts")) {
+			long playouts = getInteger(configuration, "search.playouts", 0);
+			if (time <= 0 && playouts <= 0) {
+				logger.error("The search player needs a time (search.time) or a playout (search.playouts) budget.");
+				return null;
+			}
+			MonteCarloSearch<ForwardModel> search = new MonteCarloSearch<>(evaluator);
+			search.setTimeBudget(time);
+			search.setPlayoutBudget(playouts);
+			search.setThreads(threads);
+			search.setVirtualLoss(getInteger(configuration, "search.virtualloss", 1));
+			search.setPlayoutDepth(getInteger(configuration, "search.playoutdepth", 0));
+			String value = configuration != null ? configuration.get("search.exploration") : null;
+			search.setExploration(value != null ? Double.parseDouble(value.trim()) : 1.0);
+			return search;
+		}
+		logger.error("Unknown search engine (search.engine): {}", engineName);
+		return null;
+	}
+
+	/**
+	 * Search the best move within the budget.
+	 * @return The best move found, or {@link Move#NONE} if the board is
+	 * full.
+	 */
+	@Override
+	protected int move(BoardView board, char empty, char you, char enemy) {
+		ForwardModel model = manager.getForwardModel();
+		long searched = engine.getSearched();
+		long searchTime = engine.getSearchTime();
+		int move = engine.search(model);
+		if (logger.isDebugEnabled()) {
+			searched = engine.getSearched() - searched;
+			searchTime = engine.getSearchTime() - searchTime;
+			logger.debug("Searched {} {} in {} ms, {}/s.", searched, getUnit(), TimeUnit.NANOSECONDS.toMillis(searchTime),
+					perSecond(searched, searchTime));
+		}
+		return move != GameState.NO_MOVE ? Move.pack(model.getX(move), model.getY(move)) : Move.NONE;
+	}
+
+	@Override
+	protected boolean finalise() {
+		long searched = engine.getSearched();
+		long searchTime = engine.getSearchTime();
+		logger.info("Searched {} {} in {} ms, {}/s.", searched, getUnit(), TimeUnit.NANOSECONDS.toMillis(searchTime),
+				perSecond(searched, searchTime));
+		return true;
+	}
+
+	/**
+	 * @return The engine of the player, created on reset.
+	 */
+	public SearchEngine<ForwardModel> getEngine() {
+		return engine;
+	}
+
+	private String getUnit() {
+		return engine instanceof MonteCarloSearch ? "playouts" : "nodes";
+	}
+
+}
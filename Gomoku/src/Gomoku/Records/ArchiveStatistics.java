@@ -0,0 +1,180 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Opening statistics of a record file, computed with a parallel scan of its
+ * {@link GameArchive}: the results by seat, the moves off the board, and the
+ * most frequent first moves with the share of the games won by the first
+ * player after them. The first moves are only counted in the games played on
+ * the board size of the first game, as the same cell is a different opening
+ * on another board.
+ * <pre>java -cp Gomoku-1.6.0.jar:lib/* Gomoku.Records.ArchiveStatistics Gomoku.games [threads]</pre>
+ */
+public class ArchiveStatistics {
+
+	/**
+	 * The counters of a thread of the scan.
+	 */
+	public static class Counters {
+
+		private long games = 0;
+
+		private long moves = 0;
+
+		private final long[] wins = new long[3];
+
+		private long movesOffBoard = 0;
+
+		/**
+		 * The number of the games played on the board size of the openings.
+		 */
+		private long openingGames = 0;
+
+		/**
+		 * The number of games, and the number of the games won by the first
+		 * player, by the cell index of the first move.
+		 */
+		private long[] openings = new long[0];
+
+		private long[] openingWins = new long[0];
+
+		private void ensureCells(int cells) {
+			if (openings.length < cells) {
+				openings = Arrays.copyOf(openings, cells);
+				openingWins = Arrays.copyOf(openingWins, cells);
+			}
+		}
+
+	}
+
+	/**
+	 * The scan collecting the {@link Counters}.
+	 */
+	public static class CountersScan extends GameArchive.Scan<Counters> {
+
+		private final int width;
+
+		private final int height;
+
+		/**
+		 * Create a scan counting the openings on one board size.
+		 * @param width The width of the board of the counted openings.
+		 * @param height The height of the board of the counted openings.
+		 */
+		public CountersScan(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		protected Counters createResult() {
+			return new Counters();
+		}
+
+		@Override
+		protected void visit(GameArchive.Cursor cursor, Counters counters) {
+			++counters.games;
+			counters.moves += cursor.getMoveCount();
+			++counters.wins[cursor.getWinner()];
+			boolean counted = cursor.getWidth() == width && cursor.getHeight() == height;
+			if (counted) {
+				++counters.openingGames;
+			}
+			if (cursor.nextMove()) {
+				int cell = cursor.getMoveIndex();
+				if (counted && cell >= 0) {
+					counters.ensureCells(cursor.getWidth() * cursor.getHeight());
+					++counters.openings[cell];
+					if (cursor.getWinner() == 1) {
+						++counters.openingWins[cell];
+					}
+				}
+				do {
+					if (cursor.getMoveIndex() < 0) {
+						++counters.movesOffBoard;
+					}
+				} while (cursor.nextMove());
+			}
+		}
+
+		@Override
+		protected Counters merge(Counters counters, Counters other) {
+			counters.games += other.games;
+			counters.moves += other.moves;
+			counters.movesOffBoard += other.movesOffBoard;
+			counters.openingGames += other.openingGames;
+			for (int i = 0; i < counters.wins.length; i++) {
+				counters.wins[i] += other.wins[i];
+			}
+			counters.ensureCells(other.openings.length);
+			for (int cell = 0; cell < other.openings.length; cell++) {
+				counters.openings[cell] += other.openings[cell];
+				counters.openingWins[cell] += other.openingWins[cell];
+			}
+			return counters;
+		}
+
+	}
+
+	public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: ArchiveStatistics <record file> [threads]");
+			System.exit(1);
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		long time = System.nanoTime();
+		try (GameArchive archive = new GameArchive(new File(args[0]))) {
+			if (archive.getGameCount() == 0) {
+				System.out.println("The archive is empty.");
+				return;
+			}
+			GameArchive.Cursor cursor = archive.cursor();
+			cursor.seek(0);
+			int width = cursor.getWidth();
+			int height = cursor.getHeight();
+			Counters counters = archive.scan(threads, new CountersScan(width, height));
+			double seconds = (System.nanoTime() - time) / 1e9;
+			System.out.printf("%d games, %d moves in %.3f s (%.0f moves/s).%n", counters.games, counters.moves, seconds, counters.moves / seconds);
+			System.out.printf("First player won %d, second player won %d, %d draws.%n", counters.wins[1], counters.wins[2], counters.wins[0]);
+			System.out.printf("%d moves off the board.%n", counters.movesOffBoard);
+			System.out.printf("Most frequent first moves of the %d games on the %dx%d board of the first game", counters.openingGames, width, height);
+			if (counters.openingGames < counters.games) {
+				System.out.printf(" (%d games on other boards are not counted)", counters.games - counters.openingGames);
+			}
+			System.out.println(":");
+			System.out.printf("%8s %10s %10s%n", "x,y", "Games", "Won (%)");
+			boolean[] printed = new boolean[counters.openings.length];
+			for (int line = 0; line < 10; line++) {
+				int best = -1;
+				for (int cell = 0; cell < counters.openings.length; cell++) {
+					if (!printed[cell] && counters.openings[cell] > 0 && (best < 0 || counters.openings[cell] > counters.openings[best])) {
+						best = cell;
+					}
+				}
+				if (best < 0) {
+					break;
+				}
+				printed[best] = true;
+				System.out.printf("%8s %10d %10.1f%n", (best % width) + "," + (best / width), counters.openings[best],
+						100.0 * counters.openingWins[best] / counters.openings[best]);
+			}
+		}
+	}
+
+}
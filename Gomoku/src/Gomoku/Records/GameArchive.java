@@ -0,0 +1,534 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A read-only, memory-mapped view of a record file, for the analysis of many
+ * games. The file is mapped in segments of at most {@link #SEGMENT_SIZE}
+ * bytes, split on record boundaries, and the games are located through the
+ * index file (rebuilt in memory if it is missing or does not match the
+ * record file). The games are read with {@link Cursor}s, that do not
+ * allocate while reading the moves, and can be scanned on many threads with
+ * {@link #scan(int, Scan)}.
+ */
+public class GameArchive implements Closeable {
+
+	/**
+	 * The maximum size of a mapped segment of the file.
+	 */
+	public static final long SEGMENT_SIZE = 1L << 30;
+
+	/**
+	 * The number of games a thread of a {@link #scan(int, Scan)} takes at
+	 * once.
+	 */
+	private static final int SCAN_CHUNK = 1024;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final FileChannel channel;
+
+	/**
+	 * The offsets of the records in the file.
+	 */
+	private final long[] offsets;
+
+	/**
+	 * The mapped segments of the file, the offsets they start at in the file,
+	 * and the first games in them.
+	 */
+	private final MappedByteBuffer[] segments;
+
+	private final long[] segmentOffsets;
+
+	private final int[] segmentGames;
+
+	/**
+	 * Reads one game of the archive at a time. The cursor does not allocate
+	 * while reading the games and the moves (only {@link #getPlayerName(int)}
+	 * does). A cursor should be used by one thread at a time.
+	 */
+	public class Cursor {
+
+		/**
+		 * The views of the segments of this cursor, created when first used.
+		 */
+		private final ByteBuffer[] views = new ByteBuffer[segments.length];
+
+		private ByteBuffer buffer = null;
+
+		private int game = -1;
+
+		private int width;
+
+		private int height;
+
+		private int winner;
+
+		private final char[] playerChars = new char[3];
+
+		private final int[] playerNameOffsets = new int[3];
+
+		private final int[] playerNameLengths = new int[3];
+
+		private int moveCount;
+
+		private int move;
+
+		private int x;
+
+		private int y;
+
+		/**
+		 * Move to a game, and before its first move.
+		 * @param game The index of the game.
+		 * @throws IndexOutOfBoundsException If there is no such game.
+		 * @throws IllegalArgumentException If the record is malformed.
+		 */
+		public void seek(int game) {
+			if (game < 0 || game >= offsets.length) {
+				throw new IndexOutOfBoundsException("No game " + game + " in the archive of " + offsets.length + " games.");
+			}
+			int segment = getSegment(game);
+			if (views[segment] == null) {
+				views[segment] = segments[segment].duplicate();
+			}
+			buffer = views[segment];
+			buffer.position((int) (offsets[game] - segmentOffsets[segment]));
+			GameRecord.getVarint(buffer);
+			width = GameRecord.getVarint(buffer);
+			height = GameRecord.getVarint(buffer);
+			winner = GameRecord.getVarint(buffer);
+			for (int number = 1; number <= 2; number++) {
+				playerChars[number] = (char) GameRecord.getVarint(buffer);
+				playerNameLengths[number] = GameRecord.getVarint(buffer);
+				playerNameOffsets[number] = buffer.position();
+				buffer.position(buffer.position() + playerNameLengths[number]);
+			}
+			moveCount = GameRecord.getVarint(buffer);
+			move = -1;
+			this.game = game;
+		}
+
+		/**
+		 * Read the current game into a record.
+		 * @param record The record to read into.
+		 * @throws IllegalArgumentException If the record is malformed.
+		 * @throws IllegalStateException If no game was sought yet.
+		 */
+		public void read(GameRecord record) {
+			checkGame();
+			int segment = getSegment(game);
+			ByteBuffer view = views[segment];
+			int position = view.position();
+			view.position((int) (offsets[game] - segmentOffsets[segment]));
+			GameRecord.getVarint(view);
+			record.readBody(view);
+			view.position(position);
+		}
+
+		/**
+		 * Move to the next move of the game.
+		 * @return True if there was a next move, false at the end of the game.
+		 */
+		public boolean nextMove() {
+			if (move + 1 >= moveCount) {
+				return false;
+			}
+			++move;
+			int index = GameRecord.getVarint(buffer);
+			if (index != 0) {
+				x = (index - 1) % width;
+				y = (index - 1) / width;
+			} else {
+				x = GameRecord.unZigZag(GameRecord.getVarint(buffer));
+				y = GameRecord.unZigZag(GameRecord.getVarint(buffer));
+			}
+			return true;
+		}
+
+		/**
+		 * @return The index of the current game.
+		 */
+		public int getGame() {
+			return game;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * @return The number of the winner, or 0 for a draw.
+		 */
+		public int getWinner() {
+			return winner;
+		}
+
+		public char getPlayerChar(int number) {
+			return playerChars[number];
+		}
+
+		/**
+		 * Decode the name of a player. This allocates a new String.
+		 * @param number The number of the player.
+		 * @return The name of the player.
+		 * @throws IllegalStateException If no game was sought yet.
+		 */
+		public String getPlayerName(int number) {
+			checkGame();
+			byte[] name = new byte[playerNameLengths[number]];
+			ByteBuffer nameBuffer = buffer.duplicate();
+			nameBuffer.position(playerNameOffsets[number]);
+			nameBuffer.get(name);
+			return new String(name, UTF8);
+		}
+
+		public int getMoveCount() {
+			return moveCount;
+		}
+
+		/**
+		 * @return The number of the current move, starting from 0.
+		 */
+		public int getMove() {
+			return move;
+		}
+
+		/**
+		 * @return The number of the player of the current move (1 or 2).
+		 */
+		public int getMovePlayer() {
+			return move % 2 + 1;
+		}
+
+		public int getMoveX() {
+			return x;
+		}
+
+		public int getMoveY() {
+			return y;
+		}
+
+		/**
+		 * @return The cell index (y * width + x) of the current move, or -1
+		 * if the move is off the board.
+		 */
+		public int getMoveIndex() {
+			return x >= 0 && x < width && y >= 0 && y < height ? y * width + x : -1;
+		}
+
+		private void checkGame() {
+			if (game < 0) {
+				throw new IllegalStateException("No game was sought by the cursor yet.");
+			}
+		}
+
+	}
+
+	/**
+	 * A computation over all the games of the archive, see {@link
+	 * #scan(int, Scan)}. Every thread of the scan collects its own result,
+	 * and the results are merged at the end.
+	 * @param <R> The type of the result.
+	 */
+	public static abstract class Scan<R> {
+
+		/**
+		 * Create the empty result of a thread.
+		 * @return The empty result.
+		 */
+		protected abstract R createResult();
+
+		/**
+		 * Process a game.
+		 * @param cursor The cursor, at the beginning of the game.
+		 * @param result The result of the thread.
+		 */
+		protected abstract void visit(Cursor cursor, R result);
+
+		/**
+		 * Merge the result of a thread into another.
+		 * @param result The result to merge into.
+		 * @param other The result of another thread.
+		 * @return The merged result.
+		 */
+		protected abstract R merge(R result, R other);
+
+	}
+
+	/**
+	 * Open and map a record file.
+	 * @param file The record file.
+	 * @throws IOException If the file can not be read, or it is not a record
+	 * file.
+	 */
+	public GameArchive(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			ByteBuffer header = ByteBuffer.allocate(GameRecordWriter.MAGIC.length + 1);
+			channel.read(header, 0);
+			header.flip();
+			for (byte b : GameRecordWriter.MAGIC) {
+				if (!header.hasRemaining() || header.get() != b) {
+					throw new IOException("'" + file + "' is not a game record file.");
+				}
+			}
+			if (!header.hasRemaining() || header.get() != GameRecordWriter.VERSION) {
+				throw new IOException("Unsupported game record file version in '" + file + "'.");
+			}
+			long[] index = readIndex(GameRecordWriter.getIndexFile(file), size);
+			if (index == null) {
+				logger.info("The index of '{}' is missing or does not match, rebuilding it.", file);
+				index = buildIndex(header.capacity(), size);
+			}
+			offsets = index;
+			// Split the file into segments on record boundaries
+			List<Long> starts = new ArrayList<>();
+			List<Integer> games = new ArrayList<>();
+			for (int game = 0; game < offsets.length; game++) {
+				long end = game + 1 < offsets.length ? offsets[game + 1] : size;
+				if (starts.isEmpty() || end - starts.get(starts.size() - 1) > SEGMENT_SIZE) {
+					if (end - offsets[game] > SEGMENT_SIZE) {
+						throw new IOException("Game " + game + " of '" + file + "' is too large.");
+					}
+					starts.add(offsets[game]);
+					games.add(game);
+				}
+			}
+			segments = new MappedByteBuffer[starts.size()];
+			segmentOffsets = new long[starts.size()];
+			segmentGames = new int[starts.size()];
+			for (int segment = 0; segment < segments.length; segment++) {
+				segmentOffsets[segment] = starts.get(segment);
+				segmentGames[segment] = games.get(segment);
+				long end = segment + 1 < segments.length ? starts.get(segment + 1) : size;
+				segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, segmentOffsets[segment], end - segmentOffsets[segment]);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of the games in the archive.
+	 */
+	public int getGameCount() {
+		return offsets.length;
+	}
+
+	/**
+	 * Create a new cursor. Every thread should have its own.
+	 * @return A cursor, not positioned at any game yet.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Read a game into a record.
+	 * @param game The index of the game.
+	 * @param record The record to read into.
+	 * @throws IndexOutOfBoundsException If there is no such game.
+	 */
+	public void read(int game, GameRecord record) {
+		if (game < 0 || game >= offsets.length) {
+			throw new IndexOutOfBoundsException("No game " + game + " in the archive of " + offsets.length + " games.");
+		}
+		int segment = getSegment(game);
+		ByteBuffer buffer = segments[segment].duplicate();
+		buffer.position((int) (offsets[game] - segmentOffsets[segment]));
+		GameRecord.getVarint(buffer);
+		record.readBody(buffer);
+	}
+
+	/**
+	 * Run a computation over all the games, on many threads. The games are
+	 * handed out in chunks, so the threads are kept busy until the end.
+	 * @param threads The number of threads.
+	 * @param scan The computation.
+	 * @param <R> The type of the result.
+	 * @return The merged result of all the threads.
+	 * @throws ExecutionException If the computation failed on a thread.
+	 * @throws InterruptedException If the waiting thread was interrupted.
+	 */
+	public <R> R scan(int threads, final Scan<R> scan) throws ExecutionException, InterruptedException {
+		final AtomicInteger nextGame = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<R>> futures = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				futures.add(executor.submit(new Callable<R>() {
+					@Override
+					public R call() {
+						R result = scan.createResult();
+						Cursor cursor = cursor();
+						int first;
+						while ((first = nextGame.getAndAdd(SCAN_CHUNK)) < offsets.length) {
+							int last = Math.min(offsets.length, first + SCAN_CHUNK);
+							for (int game = first; game < last; game++) {
+								cursor.seek(game);
+								scan.visit(cursor, result);
+							}
+						}
+						return result;
+					}
+				}));
+			}
+			R result = null;
+			for (Future<R> future : futures) {
+				result = result == null ? future.get() : scan.merge(result, future.get());
+			}
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Close the file. The mapped segments stay valid until they are garbage
+	 * collected.
+	 * @throws IOException If the file could not be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Find the segment of a game.
+	 */
+	private int getSegment(int game) {
+		int segment = Arrays.binarySearch(segmentGames, game);
+		return segment >= 0 ? segment : -segment - 2;
+	}
+
+	/**
+	 * Read the index file.
+	 * @return The offsets, or null if the index is missing, or does not
+	 * match the record file.
+	 */
+	private long[] readIndex(File indexFile, long size) throws IOException {
+		if (!indexFile.isFile() || indexFile.length() % 8 != 0 || indexFile.length() / 8 > Integer.MAX_VALUE) {
+			return null;
+		}
+		long[] index = new long[(int) (indexFile.length() / 8)];
+		try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+			int game = 0;
+			while (indexChannel.read(buffer) >= 0 || buffer.position() > 0) {
+				buffer.flip();
+				while (buffer.remaining() >= 8 && game < index.length) {
+					index[game++] = buffer.getLong();
+				}
+				buffer.compact();
+				if (game == index.length) {
+					break;
+				}
+			}
+			if (game != index.length) {
+				return null;
+			}
+		}
+		// The records must be in order, starting after the header, with the
+		// last one ending at the end of the file
+		long previous = GameRecordWriter.MAGIC.length;
+		for (long offset : index) {
+			if (offset <= previous || offset >= size) {
+				return null;
+			}
+			previous = offset;
+		}
+		long expected = GameRecordWriter.MAGIC.length + 1;
+		if (index.length > 0) {
+			if (index[0] != expected) {
+				return null;
+			}
+			ByteBuffer length = ByteBuffer.allocate(5);
+			channel.read(length, index[index.length - 1]);
+			length.flip();
+			expected = index[index.length - 1] + recordSize(length, index[index.length - 1]);
+		}
+		return expected == size ? index : null;
+	}
+
+	/**
+	 * Find the records by reading their lengths.
+	 */
+	private long[] buildIndex(long start, long size) throws IOException {
+		long[] index = new long[1024];
+		int games = 0;
+		ByteBuffer length = ByteBuffer.allocate(5);
+		for (long offset = start; offset < size; ) {
+			if (games == index.length) {
+				index = Arrays.copyOf(index, games * 2);
+			}
+			index[games++] = offset;
+			length.clear();
+			channel.read(length, offset);
+			length.flip();
+			offset += recordSize(length, offset);
+			if (offset > size) {
+				throw new IOException("The last game record is truncated.");
+			}
+		}
+		return Arrays.copyOf(index, games);
+	}
+
+	/**
+	 * Get the size of a record, with its length.
+	 * @param length The buffer with the first bytes of the record.
+	 * @param offset The offset of the record, for the error message.
+	 */
+	private static long recordSize(ByteBuffer length, long offset) throws IOException {
+		try {
+			int body = GameRecord.getVarint(length);
+			if (body < 0) {
+				throw new IllegalArgumentException("Negative length.");
+			}
+			return length.position() + (long) body;
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed game record length at " + offset + ".", e);
+		}
+	}
+
+}
@@ -0,0 +1,270 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * The record of a Gomoku game: the size of the board, the players, the moves
+ * and the winner. The object is reusable, so recording or reading many games
+ * does not allocate a new record for every game. See the package
+ * documentation for the binary format.
+ */
+public class GameRecord {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private int width = 0;
+
+	private int height = 0;
+
+	private int winner = 0;
+
+	private final char[] playerChars = new char[3];
+
+	private final String[] playerNames = new String[3];
+
+	private int moveCount = 0;
+
+	private int[] moveXs = new int[64];
+
+	private int[] moveYs = new int[64];
+
+	/**
+	 * The reused buffer of {@link #encode()}.
+	 */
+	private byte[] encoded = new byte[256];
+
+	private int encodedLength = 0;
+
+	/**
+	 * Start recording a new game, forgetting the moves and the winner.
+	 * @param width The width of the board.
+	 * @param height The height of the board.
+	 */
+	public void reset(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.winner = 0;
+		this.moveCount = 0;
+	}
+
+	/**
+	 * Set a player of the game.
+	 * @param number The number of the player (1 or 2).
+	 * @param character The character of the player.
+	 * @param name The name of the player.
+	 */
+	public void setPlayer(int number, char character, String name) {
+		playerChars[number] = character;
+		playerNames[number] = name;
+	}
+
+	/**
+	 * Record a move. The moves can be off the board (like the last move of a
+	 * player that lost with an invalid move).
+	 * @param x The x coordinate of the move.
+	 * @param y The y coordinate of the move.
+	 */
+	public void addMove(int x, int y) {
+		if (moveCount == moveXs.length) {
+			moveXs = Arrays.copyOf(moveXs, moveCount * 2);
+			moveYs = Arrays.copyOf(moveYs, moveCount * 2);
+		}
+		moveXs[moveCount] = x;
+		moveYs[moveCount] = y;
+		++moveCount;
+	}
+
+	/**
+	 * Set the result of the game.
+	 * @param winner The number of the winner, or 0 for a draw.
+	 */
+	public void setWinner(int winner) {
+		this.winner = winner;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return The number of the winner, or 0 for a draw.
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	public char getPlayerChar(int number) {
+		return playerChars[number];
+	}
+
+	public String getPlayerName(int number) {
+		return playerNames[number];
+	}
+
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	public int getMoveX(int move) {
+		return moveXs[move];
+	}
+
+	public int getMoveY(int move) {
+		return moveYs[move];
+	}
+
+	/**
+	 * Encode the record, with its length in front.
+	 * @return A buffer wrapping the reused array of the encoded record. It is
+	 * only valid until the next call.
+	 */
+	public ByteBuffer encode() {
+		// Leave room for the length, and move the body after it later
+		encodedLength = 5;
+		putVarint(width);
+		putVarint(height);
+		putVarint(winner);
+		for (int number = 1; number <= 2; number++) {
+			putVarint(playerChars[number]);
+			byte[] name = (playerNames[number] == null ? "" : playerNames[number]).getBytes(UTF8);
+			putVarint(name.length);
+			ensureCapacity(name.length);
+			System.arraycopy(name, 0, encoded, encodedLength, name.length);
+			encodedLength += name.length;
+		}
+		putVarint(moveCount);
+		for (int move = 0; move < moveCount; move++) {
+			int x = moveXs[move];
+			int y = moveYs[move];
+			if (x >= 0 && x < width && y >= 0 && y < height) {
+				putVarint(y * width + x + 1);
+			} else {
+				putVarint(0);
+				putVarint(zigZag(x));
+				putVarint(zigZag(y));
+			}
+		}
+		int bodyLength = encodedLength - 5;
+		int start = 5 - varintSize(bodyLength);
+		encodedLength = start;
+		putVarint(bodyLength);
+		return ByteBuffer.wrap(encoded, start, bodyLength + 5 - start);
+	}
+
+	/**
+	 * Read the body of an encoded record (everything after its length) into
+	 * this object.
+	 * @param buffer The buffer, positioned at the body. It is left at the end
+	 * of the body.
+	 * @throws IllegalArgumentException If the record is malformed.
+	 */
+	public void readBody(ByteBuffer buffer) {
+		try {
+			reset(getVarint(buffer), getVarint(buffer));
+			winner = getVarint(buffer);
+			for (int number = 1; number <= 2; number++) {
+				char character = (char) getVarint(buffer);
+				int length = getVarint(buffer);
+				if (length < 0 || length > buffer.remaining()) {
+					throw new IllegalArgumentException("Malformed game record: the name of player " + number
+							+ " is longer than the record.");
+				}
+				byte[] name = new byte[length];
+				buffer.get(name);
+				setPlayer(number, character, new String(name, UTF8));
+			}
+			int moves = getVarint(buffer);
+			for (int move = 0; move < moves; move++) {
+				int index = getVarint(buffer);
+				if (index != 0) {
+					addMove((index - 1) % width, (index - 1) / width);
+				} else {
+					int x = unZigZag(getVarint(buffer));
+					addMove(x, unZigZag(getVarint(buffer)));
+				}
+			}
+		} catch (BufferUnderflowException | ArithmeticException e) {
+			throw new IllegalArgumentException("Malformed game record.", e);
+		}
+	}
+
+	/**
+	 * Read an unsigned varint: 7 bits per byte, least significant group
+	 * first, with the high bit set on all the bytes but the last.
+	 * @param buffer The buffer to read from.
+	 * @return The value.
+	 * @throws IllegalArgumentException If the varint is longer than 5 bytes.
+	 */
+	public static int getVarint(ByteBuffer buffer) {
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint.");
+	}
+
+	/**
+	 * Get the number of bytes of an unsigned varint.
+	 * @param value The value.
+	 * @return The size of the encoded value, between 1 and 5.
+	 */
+	public static int varintSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			value >>>= 7;
+			++size;
+		}
+		return size;
+	}
+
+	/**
+	 * Map a signed value to an unsigned one, so small negative values have
+	 * short varints too.
+	 */
+	public static int zigZag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	public static int unZigZag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private void putVarint(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			encoded[encodedLength++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		encoded[encodedLength++] = (byte) value;
+	}
+
+	private void ensureCapacity(int bytes) {
+		if (encodedLength + bytes > encoded.length) {
+			encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, encodedLength + bytes));
+		}
+	}
+
+}
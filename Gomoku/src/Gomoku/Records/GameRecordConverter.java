@@ -0,0 +1,82 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Converts a record file to the text logs of the earlier versions: one file
+ * for every game, with the width and the height of the board in the first
+ * line, and the coordinates of a move in every other line.
+ * <pre>java -cp Gomoku-1.6.0.jar:lib/* Gomoku.Records.GameRecordConverter Gomoku.games [directory]</pre>
+ */
+public class GameRecordConverter {
+
+	/**
+	 * Write a record as a text log.
+	 * @param record The record.
+	 * @param writer The writer to write the log to.
+	 * @throws IOException If the log could not be written.
+	 */
+	public static void writeText(GameRecord record, Writer writer) throws IOException {
+		writer.write(record.getWidth() + " " + record.getHeight() + "\n");
+		for (int move = 0; move < record.getMoveCount(); move++) {
+			writer.write(record.getMoveX(move) + " " + record.getMoveY(move) + "\n");
+		}
+	}
+
+	/**
+	 * Convert all the games of a record file into text logs named
+	 * 'Gomoku--&lt;game&gt;.log', where game is the index of the game in
+	 * the file.
+	 * @param file The record file.
+	 * @param directory The directory to write the logs into.
+	 * @return The number of the converted games.
+	 * @throws IOException If the record file could not be read, or a log
+	 * could not be written.
+	 */
+	public static long convert(File file, File directory) throws IOException {
+		GameRecord record = new GameRecord();
+		long games = 0;
+		try (GameRecordReader reader = new GameRecordReader(file)) {
+			while (reader.next(record)) {
+				File logFile = new File(directory, "Gomoku--" + games + ".log");
+				try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(logFile), "UTF-8"))) {
+					writeText(record, writer);
+				}
+				++games;
+			}
+		}
+		return games;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1 || args.length > 2) {
+			System.err.println("Usage: GameRecordConverter <record file> [output directory]");
+			System.exit(1);
+		}
+		File directory = new File(args.length > 1 ? args[1] : ".");
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			System.err.println("Can not create directory '" + directory + "'.");
+			System.exit(1);
+		}
+		long games = convert(new File(args[0]), directory);
+		System.out.println("Converted " + games + " games into '" + directory + "'.");
+	}
+
+}
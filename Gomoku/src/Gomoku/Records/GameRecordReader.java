@@ -0,0 +1,131 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the {@link GameRecord}s of a record file one after the other,
+ * through a buffer. The index file is not needed.
+ */
+public class GameRecordReader implements Closeable {
+
+	private final FileChannel channel;
+
+	private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+	private boolean endOfFile = false;
+
+	/**
+	 * Open a record file.
+	 * @param file The record file.
+	 * @throws IOException If the file can not be read, or it is not a record
+	 * file.
+	 */
+	public GameRecordReader(File file) throws IOException {
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		buffer.flip();
+		boolean opened = false;
+		try {
+			fill(GameRecordWriter.MAGIC.length + 1);
+			if (buffer.remaining() < GameRecordWriter.MAGIC.length + 1) {
+				throw new EOFException("'" + file + "' is too short to be a game record file.");
+			}
+			for (byte b : GameRecordWriter.MAGIC) {
+				if (buffer.get() != b) {
+					throw new IOException("'" + file + "' is not a game record file.");
+				}
+			}
+			byte version = buffer.get();
+			if (version != GameRecordWriter.VERSION) {
+				throw new IOException("Unsupported game record file version " + version + " in '" + file + "'.");
+			}
+			opened = true;
+		} finally {
+			if (!opened) {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Read the next record.
+	 * @param record The record to read into.
+	 * @return True if a record was read, false at the end of the file.
+	 * @throws IOException If the file can not be read, or the record is
+	 * malformed.
+	 */
+	public boolean next(GameRecord record) throws IOException {
+		// The length is a varint of at most 5 bytes
+		fill(5);
+		if (!buffer.hasRemaining()) {
+			return false;
+		}
+		int length;
+		try {
+			length = GameRecord.getVarint(buffer);
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed game record length.", e);
+		}
+		fill(length);
+		if (length < 0 || buffer.remaining() < length) {
+			throw new EOFException("Truncated game record.");
+		}
+		int end = buffer.position() + length;
+		try {
+			record.readBody(buffer);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		if (buffer.position() != end) {
+			throw new IOException("Malformed game record.");
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Read from the file until at least the given number of bytes is in the
+	 * buffer, or the end of the file is reached.
+	 */
+	private void fill(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes || endOfFile) {
+			return;
+		}
+		if (bytes > buffer.capacity()) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+			larger.put(buffer);
+			buffer = larger;
+		} else {
+			buffer.compact();
+		}
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0) {
+				endOfFile = true;
+				break;
+			}
+		}
+		buffer.flip();
+	}
+
+}
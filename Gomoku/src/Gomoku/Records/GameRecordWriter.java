@@ -0,0 +1,212 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends {@link GameRecord}s to a record file, and their offsets to its
+ * index file. There is one writer for every file, shared by all the games
+ * (and threads) of the simulator, see {@link #get(File)}. The records are
+ * collected in a buffer, and written to the file when it is full, or when
+ * the writer is flushed or closed. All the writers are closed when the JVM
+ * exits. Only one process should write a record file at a time.
+ */
+public class GameRecordWriter implements Closeable {
+
+	/**
+	 * The first bytes of a record file.
+	 */
+	public static final byte[] MAGIC = {'G', 'M', 'K', 'R'};
+
+	/**
+	 * The version of the format of the record file.
+	 */
+	public static final byte VERSION = 1;
+
+	/**
+	 * The size of the buffers of a writer.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final Logger logger = LoggerFactory.getLogger(GameRecordWriter.class);
+
+	/**
+	 * The open writers by the absolute paths of their files.
+	 */
+	private static final Map<String, GameRecordWriter> writers = new HashMap<>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("GameRecordWriter-close") {
+			@Override
+			public void run() {
+				closeAll();
+			}
+		});
+	}
+
+	private final File file;
+
+	private final FileChannel channel;
+
+	private final FileChannel indexChannel;
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * The offset of the next record in the file.
+	 */
+	private long offset;
+
+	private boolean closed = false;
+
+	private GameRecordWriter(File file) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		try {
+			this.indexChannel = FileChannel.open(getIndexFile(file).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		if (channel.size() == 0) {
+			buffer.put(MAGIC).put(VERSION);
+		}
+		offset = channel.size() + buffer.position();
+	}
+
+	/**
+	 * Get the writer of a record file, opening it if it is not open yet.
+	 * @param file The record file.
+	 * @return The writer of the file.
+	 * @throws IOException If the file or its index can not be opened.
+	 */
+	public static GameRecordWriter get(File file) throws IOException {
+		String path = file.getAbsolutePath();
+		synchronized (writers) {
+			GameRecordWriter writer = writers.get(path);
+			if (writer == null) {
+				writer = new GameRecordWriter(file.getAbsoluteFile());
+				writers.put(path, writer);
+				logger.info("Opened game record file '{}'.", path);
+			}
+			return writer;
+		}
+	}
+
+	/**
+	 * Close all the open writers.
+	 */
+	public static void closeAll() {
+		ArrayList<GameRecordWriter> closing;
+		synchronized (writers) {
+			closing = new ArrayList<>(writers.values());
+			writers.clear();
+		}
+		for (GameRecordWriter writer : closing) {
+			try {
+				writer.close();
+			} catch (IOException e) {
+				logger.error("Could not close game record file '{}'.", writer.file, e);
+			}
+		}
+	}
+
+	/**
+	 * Get the index file of a record file.
+	 * @param file The record file.
+	 * @return The file with the '.idx' extension added.
+	 */
+	public static File getIndexFile(File file) {
+		return new File(file.getPath() + ".idx");
+	}
+
+	/**
+	 * Append a record to the file.
+	 * @param record The record of a finished game.
+	 * @throws IOException If the buffers could not be written.
+	 */
+	public synchronized void write(GameRecord record) throws IOException {
+		if (closed) {
+			throw new IOException("The game record file '" + file + "' is closed.");
+		}
+		ByteBuffer encoded = record.encode();
+		if (encoded.remaining() > buffer.remaining() || indexBuffer.remaining() < 8) {
+			flush();
+		}
+		indexBuffer.putLong(offset);
+		offset += encoded.remaining();
+		if (encoded.remaining() > buffer.remaining()) {
+			// Too large for the buffer, write it directly
+			while (encoded.hasRemaining()) {
+				channel.write(encoded);
+			}
+		} else {
+			buffer.put(encoded);
+		}
+	}
+
+	/**
+	 * Write the buffered records to the file, and their offsets to the index.
+	 * @throws IOException If the buffers could not be written.
+	 */
+	public synchronized void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+		indexBuffer.flip();
+		while (indexBuffer.hasRemaining()) {
+			indexChannel.write(indexBuffer);
+		}
+		indexBuffer.clear();
+	}
+
+	/**
+	 * Flush and close the file. The writer can not be used after this.
+	 * @throws IOException If the buffers could not be written.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		synchronized (writers) {
+			if (writers.get(file.getAbsolutePath()) == this) {
+				writers.remove(file.getAbsolutePath());
+			}
+		}
+		try {
+			flush();
+		} finally {
+			channel.close();
+			indexChannel.close();
+		}
+	}
+
+}
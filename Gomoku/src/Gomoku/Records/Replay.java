@@ -0,0 +1,204 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku.Records;
+
+import Gomoku.GameLogic;
+import Gomoku.PlayerManager;
+import Gomoku.Players.ReplayPlayer;
+import hu.hgj.improvedconfiguration.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Plays recorded games again, through the same {@link GameLogic} and {@link
+ * PlayerManager}s as the simulator, with two {@link ReplayPlayer}s, and
+ * verifies that the games end with the recorded winner. The game is built
+ * directly (not loaded by the simulator), and it is reused for all the
+ * replayed games, so replaying is limited only by the speed of the game.
+ * <pre>java -cp Gomoku-1.6.0.jar:StrategySimulatorLibrary-1.6.0.jar:lib/* Gomoku.Records.Replay Gomoku.games [game|all] [threads]</pre>
+ */
+public class Replay {
+
+	private final Configuration configuration;
+
+	private final Configuration[] playerConfigurations = new Configuration[3];
+
+	private final ReplayPlayer[] players = new ReplayPlayer[3];
+
+	private final GameLogic game;
+
+	private int winner = 0;
+
+	/**
+	 * The result of verifying many games, see {@link #verify(GameArchive,
+	 * int)}.
+	 */
+	public static class Verification {
+
+		private Replay replay = null;
+
+		private final GameRecord record = new GameRecord();
+
+		private long games = 0;
+
+		private final List<Integer> failedGames = new ArrayList<>();
+
+		/**
+		 * @return The number of the replayed games.
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * @return The indexes of the games, that did not end as recorded.
+		 */
+		public List<Integer> getFailedGames() {
+			return failedGames;
+		}
+
+	}
+
+	/**
+	 * Build the game with two {@link ReplayPlayer}s.
+	 */
+	public Replay() {
+		HashMap<String, String> entries = new HashMap<>();
+		entries.put("game.width", "5");
+		entries.put("game.height", "5");
+		configuration = new Configuration(entries);
+		List<StrategySimulator.Library.PlayerManager> playerManagers = new ArrayList<>();
+		for (int number = 1; number <= 2; number++) {
+			players[number] = new ReplayPlayer();
+			playerConfigurations[number] = configuration.getSubset("player." + number + ".");
+			playerManagers.add(new PlayerManager(players[number], number, playerConfigurations[number]));
+		}
+		game = new GameLogic(configuration, playerManagers);
+	}
+
+	/**
+	 * Replay a game.
+	 * @param record The record of the game.
+	 * @return True if the game ended with the recorded winner, after the last
+	 * recorded move.
+	 */
+	public boolean replay(GameRecord record) {
+		configuration.set("game.width", Integer.toString(record.getWidth()));
+		configuration.set("game.height", Integer.toString(record.getHeight()));
+		for (int number = 1; number <= 2; number++) {
+			playerConfigurations[number].set("character", Character.toString(record.getPlayerChar(number)));
+			players[number].setRecord(record, number);
+		}
+		winner = -1;
+		if (!game.resetWrapper() || !game.initialiseWrapper()) {
+			return false;
+		}
+		while (game.stepGameWrapper()) {
+			// Just step
+		}
+		if (!game.finaliseWrapper()) {
+			return false;
+		}
+		winner = game.getWinner();
+		return winner == record.getWinner() && players[1].getRemainingMoves() == 0 && players[2].getRemainingMoves() == 0;
+	}
+
+	/**
+	 * @return The winner of the last replayed game, 0 for a draw, or -1 if
+	 * the game could not be played.
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Replay all the games of an archive, on many threads.
+	 * @param archive The archive.
+	 * @param threads The number of threads.
+	 * @return The result of the verification.
+	 * @throws ExecutionException If replaying failed on a thread.
+	 * @throws InterruptedException If the waiting thread was interrupted.
+	 */
+	public static Verification verify(GameArchive archive, int threads) throws ExecutionException, InterruptedException {
+		return archive.scan(threads, new GameArchive.Scan<Verification>() {
+
+			@Override
+			protected Verification createResult() {
+				Verification verification = new Verification();
+				verification.replay = new Replay();
+				return verification;
+			}
+
+			@Override
+			protected void visit(GameArchive.Cursor cursor, Verification verification) {
+				++verification.games;
+				try {
+					cursor.read(verification.record);
+					if (verification.replay.replay(verification.record)) {
+						return;
+					}
+				} catch (RuntimeException e) {
+					verification.replay = new Replay();
+				}
+				verification.failedGames.add(cursor.getGame());
+			}
+
+			@Override
+			protected Verification merge(Verification verification, Verification other) {
+				verification.games += other.games;
+				verification.failedGames.addAll(other.failedGames);
+				return verification;
+			}
+
+		});
+	}
+
+	public static void main(String[] args) throws IOException, ExecutionException, InterruptedException {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: Replay <record file> [game|all] [threads]");
+			System.exit(1);
+		}
+		// The game logs every game on the info level
+		if (System.getProperty("org.slf4j.simpleLogger.defaultLogLevel") == null) {
+			System.setProperty("org.slf4j.simpleLogger.defaultLogLevel", "warn");
+		}
+		try (GameArchive archive = new GameArchive(new File(args[0]))) {
+			if (args.length > 1 && !args[1].equals("all")) {
+				int index = Integer.parseInt(args[1]);
+				GameRecord record = new GameRecord();
+				archive.read(index, record);
+				Replay replay = new Replay();
+				boolean result = replay.replay(record);
+				System.out.println("Game " + index + " " + (result ? "ended as recorded" : "did NOT end as recorded")
+						+ ", winner: " + replay.getWinner() + " (recorded: " + record.getWinner() + ").");
+				System.exit(result ? 0 : 2);
+			}
+			int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+			long time = System.nanoTime();
+			Verification verification = verify(archive, threads);
+			double seconds = (System.nanoTime() - time) / 1e9;
+			System.out.printf("Replayed %d games in %.3f s (%.0f games/s), %d did not end as recorded.%n",
+					verification.getGames(), seconds, verification.getGames() / seconds, verification.getFailedGames().size());
+			for (int i = 0; i < Math.min(10, verification.getFailedGames().size()); i++) {
+				System.out.println("Game " + verification.getFailedGames().get(i) + " did not end as recorded.");
+			}
+			System.exit(verification.getFailedGames().isEmpty() ? 0 : 2);
+		}
+	}
+
+}
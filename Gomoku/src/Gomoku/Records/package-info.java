@@ -0,0 +1,34 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+/**
+ * The binary records of the Gomoku games. A record file holds many games:
+ * <ul>
+ * <li>The file starts with the bytes 'GMKR' and the version of the format
+ * (1).</li>
+ * <li>Then the records of the games follow, each starting with its length
+ * (without the length itself).</li>
+ * <li>A record contains the width and the height of the board, the winner
+ * (0 for a draw), the character and the UTF-8 name (its length and its
+ * bytes) of the two players, the number of the moves and the moves.</li>
+ * <li>A move on the board is stored as its cell index plus one (y * width +
+ * x + 1). A move off the board is stored as a 0, followed by its x and y
+ * coordinates zigzag encoded.</li>
+ * <li>All the numbers are unsigned varints: 7 bits per byte, least
+ * significant group first, with the high bit set on all the bytes but the
+ * last.</li>
+ * </ul>
+ * The index file (the record file with the '.idx' extension added) holds the
+ * offsets of the records in the record file, as 8 byte big-endian numbers.
+ * @version 1.6.0
+ */
+package Gomoku.Records;
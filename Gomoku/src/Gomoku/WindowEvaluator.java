@@ -0,0 +1,43 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package Gomoku;
+
+import StrategySimulator.Library.Search.Evaluator;
+import StrategySimulator.Library.Search.MoveOrdering;
+
+/**
+ * The evaluation and the move ordering of the Gomoku positions for the
+ * generic searches, by the windows (every five cells in a row) kept up to
+ * date by the {@link ForwardModel}: see {@link ForwardModel#getEvaluation()}
+ * and {@link ForwardModel#getThreat(int)}. The moves making or blocking
+ * five in a row are ordered before the killer moves of the search.
+ */
+public class WindowEvaluator implements Evaluator<ForwardModel>, MoveOrdering<ForwardModel> {
+
+	/**
+	 * The ordering bonus of the moves making or blocking five in a row.
+	 */
+	private static final int FIVE_BONUS = 1 << 24;
+
+	@Override
+	public int evaluate(ForwardModel state, int side) {
+		return side == ForwardModel.PLAYER ? state.getEvaluation() : -state.getEvaluation();
+	}
+
+	@Override
+	public int scoreMove(ForwardModel state, int move) {
+		int threat = state.getThreat(move);
+		return threat >= ForwardModel.FIVE ? threat + FIVE_BONUS : threat;
+	}
+
+}
@@ -0,0 +1,124 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many independent games of the same configuration on a pool of worker
+ * threads. Every worker has its own {@link Simulator} with its own game, that
+ * is replayed for every game the worker plays. The workers share nothing but
+ * the counter of the remaining games, and their {@link Results} are only
+ * merged at the end.
+ */
+public class Batch {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final File configFile;
+
+	private final long games;
+
+	private final int threads;
+
+	private final boolean virtual;
+
+	/**
+	 * The number of the next game to be played by any of the workers.
+	 */
+	private final AtomicLong nextGame = new AtomicLong(0);
+
+	/**
+	 * Construct the batch.
+	 * @param configFile The game configuration file.
+	 * @param games The number of games to play.
+	 * @param threads The number of worker threads.
+	 */
+	public Batch(File configFile, long games, int threads) {
+		this(configFile, games, threads, false);
+	}
+
+	/**
+	 * Construct the batch.
+	 * @param configFile The game configuration file.
+	 * @param games The number of games to play.
+	 * @param threads The number of workers, that is the number of games
+	 * played at once.
+	 * @param virtual Run every worker on its own virtual thread, see {@link
+	 * VirtualThreads}.
+	 */
+	public Batch(File configFile, long games, int threads, boolean virtual) {
+		this.configFile = configFile;
+		this.games = games;
+		this.threads = threads;
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Play all the games and wait for them to finish.
+	 * @return The merged {@link Results} of all the workers.
+	 * @throws InterruptedException If the waiting thread is interrupted.
+	 */
+	public Results play() throws InterruptedException {
+		logger.info("Playing {} games on {} {}threads.", games, threads, virtual ? "virtual " : "");
+		ExecutorService executor = VirtualThreads.newWorkerExecutor(threads, virtual);
+		List<Future<Results>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(new Callable<Results>() {
+				@Override
+				public Results call() {
+					return work();
+				}
+			}));
+		}
+		executor.shutdown();
+		Results results = new Results();
+		for (Future<Results> future : futures) {
+			try {
+				results.merge(future.get());
+			} catch (ExecutionException e) {
+				logger.error("Worker failed.", e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * The loop of a single worker, that plays games until there are no more
+	 * games left. The game is loaded only once, and replayed for every game.
+	 * @return The {@link Results} of the games played by this worker.
+	 */
+	private Results work() {
+		Results results = new Results();
+		Simulator simulator = new Simulator();
+		if (!simulator.loadGame(configFile)) {
+			logger.error("Worker could not load the game.");
+		}
+		while (nextGame.getAndIncrement() < games) {
+			simulator.playGames(1, results);
+		}
+		simulator.recordMetrics(results);
+		return results;
+	}
+
+}
@@ -0,0 +1,220 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread safe cache of the class loaders, the loaded classes and the
+ * factories of their objects, so loading the same game again (or on many
+ * threads) does not define the classes again. Every source (a jar file, or a
+ * directory of class files) has its own class loader, with the classes and the
+ * factories loaded from it. The number of sources is bounded, the least
+ * recently used source is evicted with all its classes.
+ */
+public class ClassCache {
+
+	/**
+	 * The default maximum number of sources in the cache.
+	 */
+	public static final int DEFAULT_MAXIMUM_SOURCES = 16;
+
+	private static final ClassCache defaultCache = new ClassCache(DEFAULT_MAXIMUM_SOURCES);
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * A source of classes, with its class loader.
+	 */
+	private static class Source {
+
+		private final ClassLoader classLoader;
+
+		/**
+		 * The loaded classes by their names.
+		 */
+		private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+		/**
+		 * The factories by their class names and types.
+		 */
+		private final ConcurrentMap<String, MethodHandle> factories = new ConcurrentHashMap<>();
+
+		private Source(ClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+
+	}
+
+	private final int maximumSources;
+
+	/**
+	 * The sources by their type and path, in the order of their last use.
+	 */
+	private final LinkedHashMap<String, Source> sources;
+
+	/**
+	 * Create an empty cache.
+	 * @param maximumSources The maximum number of sources to keep.
+	 */
+	public ClassCache(final int maximumSources) {
+		this.maximumSources = maximumSources;
+		this.sources = new LinkedHashMap<String, Source>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Source> eldest) {
+				if (size() > ClassCache.this.maximumSources) {
+					logger.debug("Evicting the classes of '{}' from the cache.", eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Get the cache shared by all the {@link Simulator}s.
+	 * @return The default cache.
+	 */
+	public static ClassCache getDefault() {
+		return defaultCache;
+	}
+
+	/**
+	 * Load a class from a jar file (or a directory of a class path).
+	 * @param url The URL of the jar file.
+	 * @param className The full name of the class.
+	 * @return The loaded class.
+	 * @throws ClassNotFoundException If the class is not in the jar.
+	 */
+	public Class<?> loadClassFromJar(URL url, String className) throws ClassNotFoundException {
+		Source source = getSource("jar:" + url, url, null);
+		Class<?> loadedClass = source.classes.get(className);
+		if (loadedClass == null) {
+			// URLClassLoaders can load in parallel, and always return the same class
+			loadedClass = source.classLoader.loadClass(className);
+			source.classes.put(className, loadedClass);
+		}
+		return loadedClass;
+	}
+
+	/**
+	 * Load a class from a class file. The classes of a game are defined by
+	 * the same class loader, so they can see each other, and the classes they
+	 * use are found in the directory of the game.
+	 * @param sourcePath The directory of the game, that the class belongs to.
+	 * @param classFile The class file.
+	 * @param className The full name of the class in the file.
+	 * @return The loaded class.
+	 * @throws IOException If the class file can not be read.
+	 */
+	public Class<?> loadClassFromFile(File sourcePath, File classFile, String className) throws IOException {
+		Source source = getSource("class:" + sourcePath.getAbsolutePath(), null, sourcePath);
+		Class<?> loadedClass = source.classes.get(className);
+		if (loadedClass == null) {
+			// The FileClassLoader does not define a loaded class again
+			loadedClass = ((FileClassLoader) source.classLoader).loadClassFromFile(classFile, className);
+			source.classes.put(className, loadedClass);
+		}
+		return loadedClass;
+	}
+
+	/**
+	 * Get a factory of the objects of a class loaded through this cache: a
+	 * {@link MethodHandle} of a public constructor, resolved only once. The
+	 * handle returns the object as the given type, so it can be called with
+	 * {@link MethodHandle#invokeExact(Object...)}, like:
+	 * <pre>Player player = (Player) factory.invokeExact();</pre>
+	 * @param loadedClass The class.
+	 * @param type The type the factory returns, a superclass of the class.
+	 * @param parameterTypes The parameter types of the constructor.
+	 * @return The factory.
+	 * @throws NoSuchMethodException If there is no such constructor.
+	 * @throws IllegalAccessException If the constructor is not public.
+	 */
+	public MethodHandle getFactory(Class<?> loadedClass, Class<?> type, Class<?>... parameterTypes) throws NoSuchMethodException, IllegalAccessException {
+		Source source = findSource(loadedClass);
+		String key = loadedClass.getName() + ":" + type.getName() + Arrays.toString(parameterTypes);
+		MethodHandle factory = source == null ? null : source.factories.get(key);
+		if (factory == null) {
+			factory = MethodHandles.publicLookup()
+					.findConstructor(loadedClass, MethodType.methodType(void.class, parameterTypes))
+					.asType(MethodType.methodType(type, parameterTypes));
+			if (source != null) {
+				source.factories.put(key, factory);
+			}
+		}
+		return factory;
+	}
+
+	/**
+	 * Forget all the sources, so the classes are loaded again.
+	 */
+	public void clear() {
+		synchronized (sources) {
+			sources.clear();
+		}
+	}
+
+	/**
+	 * Get the source with the key, or create it with a new class loader: a
+	 * {@link URLClassLoader} for the URL, or a {@link FileClassLoader} for the
+	 * directory if the URL is null.
+	 */
+	private Source getSource(String key, URL url, File directory) {
+		synchronized (sources) {
+			Source source = sources.get(key);
+			if (source == null) {
+				logger.debug("Creating class loader for '{}'.", key);
+				ClassLoader parent = ClassCache.class.getClassLoader();
+				if (url != null) {
+					source = new Source(new URLClassLoader(new URL[]{url}, parent));
+				} else {
+					source = new Source(new FileClassLoader(parent, directory));
+				}
+				sources.put(key, source);
+			}
+			return source;
+		}
+	}
+
+	/**
+	 * Find the source the class was loaded through.
+	 */
+	private Source findSource(Class<?> loadedClass) {
+		synchronized (sources) {
+			for (Source source : sources.values()) {
+				if (source.classes.get(loadedClass.getName()) == loadedClass) {
+					return source;
+				}
+			}
+			return null;
+		}
+	}
+
+}
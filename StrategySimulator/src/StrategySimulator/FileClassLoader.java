@@ -12,6 +12,7 @@
 
 package StrategySimulator;
 
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -22,12 +23,50 @@ import java.io.IOException;
  */
 public class FileClassLoader extends ClassLoader {
 
+	/**
+	 * The directory to find the referenced classes in, or null.
+	 */
+	private final File root;
+
 	/**
 	 * Constructor that calls the parent's constructor.
 	 * @param cl A reference to the {@link ClassLoader} that defined it.
 	 */
 	public FileClassLoader(ClassLoader cl) {
+		this(cl, null);
+	}
+
+	/**
+	 * Constructor for a loader, that can also find the classes referenced by
+	 * the loaded ones (like helper classes of a game) in a directory.
+	 * @param cl A reference to the {@link ClassLoader} that defined it.
+	 * @param root The directory of the class files, where the class files
+	 * are in the directories of their packages, or null.
+	 */
+	public FileClassLoader(ClassLoader cl, File root) {
 		super(cl);
+		this.root = root;
+	}
+
+	/**
+	 * Find a class in the {@link #root} directory.
+	 * @param name The full name of the class.
+	 * @return The loaded class.
+	 * @throws ClassNotFoundException If there is no such class file.
+	 */
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		if (root != null) {
+			File file = new File(root, name.replace('.', File.separatorChar) + ".class");
+			if (file.isFile()) {
+				try {
+					return loadClassFromFile(file, name);
+				} catch (IOException e) {
+					throw new ClassNotFoundException(name, e);
+				}
+			}
+		}
+		throw new ClassNotFoundException(name);
 	}
 
 	/**
@@ -37,14 +76,34 @@ public class FileClassLoader extends ClassLoader {
 	 * @throws FileNotFoundException
 	 * @throws IOException
 	 */
-	public Class loadClassFromFile(File file) throws FileNotFoundException, IOException {
+	public Class<?> loadClassFromFile(File file) throws FileNotFoundException, IOException {
+		return loadClassFromFile(file, null);
+	}
+
+	/**
+	 * Loads a {@link Class} from the given {@link File}, unless a class with
+	 * the same name was already loaded by this loader.
+	 * @param file The {@link File} to load the {@link Class} from.
+	 * @param className The full name of the class in the file, or null if it
+	 * is not known (then the class is always defined).
+	 * @return The loaded {@link Class}.
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public synchronized Class<?> loadClassFromFile(File file, String className) throws FileNotFoundException, IOException {
+		if (className != null) {
+			Class<?> loadedClass = findLoadedClass(className);
+			if (loadedClass != null) {
+				return loadedClass;
+			}
+		}
 		// Read in the bytes from the file
-		FileInputStream fis = new FileInputStream(file);
 		byte bytes[] = new byte[(int) file.length()];
-		fis.read(bytes);
-		fis.close();
+		try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+			dis.readFully(bytes);
+		}
 		// Define and then return the class
-		return defineClass(null, bytes, 0, bytes.length);
+		return defineClass(className, bytes, 0, bytes.length);
 	}
 
 }
@@ -13,19 +13,15 @@
 package StrategySimulator;
 
 import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.HashMap;
 
+/**
+ * Loads classes from jar files, through the default {@link ClassCache}, so
+ * every jar file has one class loader.
+ */
 public class JarClassLoader {
 
-	private static HashMap<URL, URLClassLoader> urlClassLoaders = new HashMap<>();
-
-	public static Class loadClassFromJar(URL url, String className) throws ClassNotFoundException {
-		// See if we need a URLClassLoader first
-		if (!urlClassLoaders.containsKey(url)) {
-			urlClassLoaders.put(url, new URLClassLoader(new URL[]{url}));
-		}
-		return urlClassLoaders.get(url).loadClass(className);
+	public static Class<?> loadClassFromJar(URL url, String className) throws ClassNotFoundException {
+		return ClassCache.getDefault().loadClassFromJar(url, className);
 	}
 
 }
@@ -16,6 +16,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * StrategySimulator main class.
@@ -34,32 +35,108 @@ public class Main {
 	private static final Logger logger = LoggerFactory.getLogger(Main.class);
 
 	/**
-	 * TODO
+	 * Parses the arguments and plays a single game, a batch of games if the
+	 * --games or --threads options are given, or a round-robin tournament of
+	 * all the players with --games games per pairing if --tournament is
+	 * given. With --virtual every worker of the batch or the tournament runs
+	 * on its own virtual thread, so --threads is the number of games played at
+	 * once, and it can be much larger than the number of processors.
 	 * @param arguments The arguments passed to the executable.
 	 */
 	public static void main(String[] arguments) {
 		System.out.println("Strategy Simulator " + version);
 
-		if (arguments.length != 1) {
-			System.out.println("Usage: StragetySimulator <game-configuration>");
-			if (arguments.length > 1) {
-				System.err.println("What should I do with the extra argument(s)?");
+		String configPath = null;
+		long games = 0;
+		int threads = 0;
+		boolean tournament = false;
+		boolean virtual = false;
+		try {
+			for (int i = 0; i < arguments.length; i++) {
+				if (arguments[i].equals("--games") && i + 1 < arguments.length) {
+					games = Long.parseLong(arguments[++i]);
+				} else if (arguments[i].equals("--threads") && i + 1 < arguments.length) {
+					threads = Integer.parseInt(arguments[++i]);
+				} else if (arguments[i].equals("--tournament")) {
+					tournament = true;
+				} else if (arguments[i].equals("--virtual")) {
+					virtual = true;
+				} else if (configPath == null && !arguments[i].startsWith("--")) {
+					configPath = arguments[i];
+				} else {
+					System.err.println("What should I do with the argument '" + arguments[i] + "'?");
+					usage();
+				}
 			}
-			System.exit(E_USER);
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid number: " + e.getMessage());
+			usage();
+		}
+		if (configPath == null || games < 0 || threads < 0) {
+			usage();
+		}
+		File configFile = new File(configPath);
+
+		if (tournament) {
+			// Play a round-robin tournament of all the players
+			try {
+				Tournament roundRobin = new Tournament(configFile, Math.max(games, 1), Math.max(threads, 1), virtual);
+				long time = System.nanoTime();
+				Results results = roundRobin.play();
+				time = System.nanoTime() - time;
+				results.printRanking(System.out);
+				System.out.println(String.format("Finished in %.3f s, %.1f games/s.", time / 1e9, results.getGames() * 1e9 / time));
+				if (results.getFailures() == 0) {
+					logger.info("Simulation finished. Exiting with code E_OK().", E_OK);
+					System.exit(E_OK);
+				}
+			} catch (IOException e) {
+				logger.error("Failed to load the tournament.", e);
+			} catch (InterruptedException e) {
+				logger.error("Interrupted while waiting for the tournament.", e);
+			}
+			System.exit(E_INTERNAL);
 		}
-		File configFile = new File(arguments[0]);
 
-		// Create the Simulator
-		Simulator simulator = new Simulator();
-		logger.debug("Simulator object constructed, starting simulation.");
+		if (games == 0 && threads == 0 && !virtual) {
+			// Create the Simulator
+			Simulator simulator = new Simulator();
+			logger.debug("Simulator object constructed, starting simulation.");
 
-		if (simulator.loadGame(configFile)) {
-			if (simulator.playGame()) {
+			if (simulator.loadGame(configFile)) {
+				if (simulator.playGame()) {
+					logger.info("Game timing:\n{}", simulator.getGameLogic().getMetrics());
+					logger.info("Simulation finished. Exiting with code E_OK().", E_OK);
+					System.exit(E_OK);
+				}
+			}
+			System.exit(E_INTERNAL);
+		}
+
+		// Play a batch of games
+		Batch batch = new Batch(configFile, Math.max(games, 1), Math.max(threads, 1), virtual);
+		try {
+			long time = System.nanoTime();
+			Results results = batch.play();
+			time = System.nanoTime() - time;
+			results.print(System.out);
+			System.out.println(String.format("Finished in %.3f s, %.1f games/s.", time / 1e9, results.getGames() * 1e9 / time));
+			if (results.getFailures() == 0) {
 				logger.info("Simulation finished. Exiting with code E_OK().", E_OK);
 				System.exit(E_OK);
 			}
+		} catch (InterruptedException e) {
+			logger.error("Interrupted while waiting for the batch.", e);
 		}
 		System.exit(E_INTERNAL);
 	}
 
+	/**
+	 * Print the usage and exit.
+	 */
+	private static void usage() {
+		System.out.println("Usage: StragetySimulator <game-configuration> [--games <number>] [--threads <number>] [--tournament] [--virtual]");
+		System.exit(E_USER);
+	}
+
 }
@@ -0,0 +1,276 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import StrategySimulator.Library.GameLogic;
+import StrategySimulator.Library.Metrics;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Win, draw and loss counts and timing of many games, collected per {@link
+ * StrategySimulator.Library.PlayerManager} number. The object is not thread
+ * safe: every worker should collect its own {@link Results}, and {@link
+ * #merge(Results)} them when all the games are over.
+ */
+public class Results {
+
+	/**
+	 * The number of successfully played games.
+	 */
+	private long games = 0;
+
+	/**
+	 * The number of games that could not be played.
+	 */
+	private long failures = 0;
+
+	/**
+	 * The identity of the players, indexed by the number of their manager.
+	 */
+	private String[] names = new String[1];
+
+	private long[] wins = new long[1];
+
+	private long[] draws = new long[1];
+
+	private long[] losses = new long[1];
+
+	/**
+	 * The timing of the game phases.
+	 */
+	private final Metrics metrics = new Metrics();
+
+	/**
+	 * The time spent by the players, indexed by the number of their manager.
+	 */
+	private Metrics[] playerMetrics = new Metrics[1];
+
+	/**
+	 * Record the result of a finished (finalised) game.
+	 * @param gameLogic The {@link GameLogic} that played the game.
+	 */
+	public void record(GameLogic<?> gameLogic) {
+		int players = gameLogic.getNumberOfPlayerManagers();
+		ensureCapacity(players);
+		int winner = gameLogic.getWinner();
+		for (int number = 1; number <= players; number++) {
+			if (names[number] == null) {
+				names[number] = gameLogic.getPlayerManager(number).getPlayerIdentity();
+			}
+			if (winner == 0) {
+				++draws[number];
+			} else if (winner == number) {
+				++wins[number];
+			} else {
+				++losses[number];
+			}
+		}
+		++games;
+	}
+
+	/**
+	 * Move the metrics collected by a {@link GameLogic} and its {@link
+	 * StrategySimulator.Library.PlayerManager}s into these results. The
+	 * metrics of the game are reset, so they are not recorded twice.
+	 * @param gameLogic The {@link GameLogic} that played the games.
+	 */
+	public void recordMetrics(GameLogic<?> gameLogic) {
+		int players = gameLogic.getNumberOfPlayerManagers();
+		ensureCapacity(players);
+		metrics.merge(gameLogic.getMetrics());
+		gameLogic.getMetrics().reset();
+		for (int number = 1; number <= players; number++) {
+			Metrics playerManagerMetrics = gameLogic.getPlayerManager(number).getMetrics();
+			playerMetrics[number].merge(playerManagerMetrics);
+			playerManagerMetrics.reset();
+		}
+	}
+
+	/**
+	 * Record a game that could not be played.
+	 */
+	public void recordFailure() {
+		++failures;
+	}
+
+	/**
+	 * Set the name printed for the given number, instead of the identity of
+	 * the first recorded player.
+	 * @param number The number to name.
+	 * @param name The name.
+	 */
+	public void setName(int number, String name) {
+		ensureCapacity(number);
+		names[number] = name;
+	}
+
+	/**
+	 * Add the counts of the other {@link Results} to these.
+	 * @param other The {@link Results} to add.
+	 */
+	public void merge(Results other) {
+		int[] numbers = new int[other.names.length];
+		for (int number = 1; number < numbers.length; number++) {
+			numbers[number] = number;
+		}
+		merge(other, numbers);
+	}
+
+	/**
+	 * Add the counts of the other {@link Results} to these, under different
+	 * numbers. This is used to collect the results of the seats of many
+	 * different games under the numbers of the players who took the seats.
+	 * @param other The {@link Results} to add.
+	 * @param numbers The number to add the counts to, indexed by the number in
+	 * the other {@link Results}.
+	 */
+	public void merge(Results other, int[] numbers) {
+		for (int number = 1; number < other.names.length; number++) {
+			int to = numbers[number];
+			ensureCapacity(to);
+			if (names[to] == null) {
+				names[to] = other.names[number];
+			}
+			wins[to] += other.wins[number];
+			draws[to] += other.draws[number];
+			losses[to] += other.losses[number];
+			playerMetrics[to].merge(other.playerMetrics[number]);
+		}
+		metrics.merge(other.metrics);
+		games += other.games;
+		failures += other.failures;
+	}
+
+	public long getGames() {
+		return games;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Get the timing of the game phases.
+	 * @return The merged metrics of all the recorded games.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Get the time spent by a player.
+	 * @param number The number of the player.
+	 * @return The merged metrics of the player, or null if there is no such
+	 * player.
+	 */
+	public Metrics getPlayerMetrics(int number) {
+		return number < playerMetrics.length ? playerMetrics[number] : null;
+	}
+
+	public long getWins(int number) {
+		return number < wins.length ? wins[number] : 0;
+	}
+
+	public long getDraws(int number) {
+		return number < draws.length ? draws[number] : 0;
+	}
+
+	public long getLosses(int number) {
+		return number < losses.length ? losses[number] : 0;
+	}
+
+	/**
+	 * Print the results as a table.
+	 * @param out The stream to print to.
+	 */
+	public void print(PrintStream out) {
+		out.println("Played " + games + " games, " + failures + " failed.");
+		out.println(String.format("%4s  %-32s %10s %10s %10s", "#", "Player", "Wins", "Draws", "Losses"));
+		for (int number = 1; number < names.length; number++) {
+			out.println(String.format("%4d  %-32s %10d %10d %10d", number, names[number], wins[number], draws[number], losses[number]));
+		}
+		printMetrics(out);
+	}
+
+	/**
+	 * Print the timing of the game phases and the players.
+	 * @param out The stream to print to.
+	 */
+	public void printMetrics(PrintStream out) {
+		out.println();
+		out.println("Game timing:");
+		out.println(metrics);
+		for (int number = 1; number < names.length; number++) {
+			if (names[number] != null) {
+				out.println();
+				out.println("Player timing of " + names[number] + ":");
+				out.println(playerMetrics[number]);
+			}
+		}
+	}
+
+	/**
+	 * Get the points of a player: 1 for every win and 1/2 for every draw.
+	 * @param number The number of the player.
+	 * @return The points of the player.
+	 */
+	public double getPoints(int number) {
+		return getWins(number) + getDraws(number) / 2.0;
+	}
+
+	/**
+	 * Print the results as a ranking table, ordered by the points of the
+	 * players.
+	 * @param out The stream to print to.
+	 */
+	public void printRanking(PrintStream out) {
+		Integer[] ranking = new Integer[names.length - 1];
+		for (int number = 1; number < names.length; number++) {
+			ranking[number - 1] = number;
+		}
+		Arrays.sort(ranking, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Double.compare(getPoints(b), getPoints(a));
+			}
+		});
+		out.println("Played " + games + " games, " + failures + " failed.");
+		out.println(String.format("%4s  %-32s %10s %10s %10s %10s", "Rank", "Player", "Points", "Wins", "Draws", "Losses"));
+		for (int rank = 0; rank < ranking.length; rank++) {
+			int number = ranking[rank];
+			if (names[number] == null) {
+				continue;
+			}
+			out.println(String.format("%4d  %-32s %10.1f %10d %10d %10d", rank + 1, names[number], getPoints(number), wins[number], draws[number], losses[number]));
+		}
+		printMetrics(out);
+	}
+
+	private void ensureCapacity(int players) {
+		if (players + 1 > names.length) {
+			names = Arrays.copyOf(names, players + 1);
+			wins = Arrays.copyOf(wins, players + 1);
+			draws = Arrays.copyOf(draws, players + 1);
+			losses = Arrays.copyOf(losses, players + 1);
+			int from = playerMetrics.length;
+			playerMetrics = Arrays.copyOf(playerMetrics, players + 1);
+			for (int number = from; number < playerMetrics.length; number++) {
+				playerMetrics[number] = new Metrics();
+			}
+		}
+	}
+
+}
@@ -23,10 +23,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.InvocationTargetException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -42,7 +40,7 @@ public class Simulator {
 	/**
 	 * The loaded {@link StrategySimulator.Library.GameLogic}.
 	 */
-	private GameLogic gameLogic = null;
+	private GameLogic<?> gameLogic = null;
 
 	private File gameConfigurationDirectory = null;
 
@@ -50,6 +48,21 @@ public class Simulator {
 
 	private long nextPlayerID = 1;
 
+	/**
+	 * The classes and constructors of the games, shared by all the
+	 * Simulators, so loading a game again does not define its classes again.
+	 */
+	private final ClassCache classCache = ClassCache.getDefault();
+
+	/**
+	 * Getter for the loaded {@link StrategySimulator.Library.GameLogic}.
+	 * @return The loaded {@link StrategySimulator.Library.GameLogic}, or null
+	 * if no game is loaded.
+	 */
+	protected GameLogic<?> getGameLogic() {
+		return gameLogic;
+	}
+
 	/**
 	 * Plays the whole game, by calling all the required steps for the game to
 	 * simulate successfully.
@@ -85,6 +98,58 @@ public class Simulator {
 		return true;
 	}
 
+	/**
+	 * Plays the loaded game again and again, without loading it again. The
+	 * same {@link StrategySimulator.Library.GameLogic} and players are reset
+	 * before every game, so the configuration is read and the classes are
+	 * loaded only once. If a game fails, the game is loaded again from the
+	 * last configuration before the next one. The metrics of a failed game
+	 * are moved into the results before it is dropped, the metrics of the
+	 * loaded game are kept until {@link #recordMetrics(Results)}.
+	 * @param games The number of games to play.
+	 * @param results The {@link Results} to record the games to.
+	 * @return True if all the games were successful, false otherwise.
+	 */
+	protected boolean playGames(long games, Results results) {
+		boolean result = true;
+		for (long game = 0; game < games; game++) {
+			if (gameLogic == null && (gameConfiguration == null || !loadGame(gameConfiguration, gameConfigurationDirectory))) {
+				results.recordFailure();
+				result = false;
+				continue;
+			}
+			boolean gameResult;
+			try {
+				gameResult = playGame();
+			} catch (RuntimeException e) {
+				logger.error("Game failed.", e);
+				gameResult = false;
+			}
+			if (gameResult) {
+				results.record(gameLogic);
+			} else {
+				logger.warn("Game failed, the game will be loaded again.");
+				results.recordFailure();
+				results.recordMetrics(gameLogic);
+				gameLogic = null;
+				result = false;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Move the metrics collected by the loaded game into the results, after
+	 * the last call of {@link #playGames(long, Results)}. Merging the
+	 * histograms is not free, so it is done once, not after every game.
+	 * @param results The {@link Results} to record the metrics to.
+	 */
+	protected void recordMetrics(Results results) {
+		if (gameLogic != null) {
+			results.recordMetrics(gameLogic);
+		}
+	}
+
 	/**
 	 * Load a game from its configuration directory.
 	 * @param configFile The directory with all the neccessary game files.
@@ -92,19 +157,33 @@ public class Simulator {
 	 */
 	protected boolean loadGame(File configFile) {
 		logger.trace("Loading configuration file '{}'.", configFile.getAbsolutePath());
-		// Clear current configuration
-		gameLogic = null;
-		gameConfigurationDirectory = configFile.getParentFile().getAbsoluteFile();
-		gameConfiguration = null;
-		nextPlayerID = 1;
 		// Load the configuration file
+		Configuration configuration;
 		try {
-			if (!verifyConfiguration(configFile)) {
-				logger.error("Could not load game.");
-				return false;
-			}
+			configuration = ConfigurationParser.loadConfiguration(configFile);
 		} catch (IOException e) {
 			logger.error("Failed to load game.", e);
+			gameLogic = null;
+			return false;
+		}
+		return loadGame(configuration, configFile.getAbsoluteFile().getParentFile());
+	}
+
+	/**
+	 * Load a game from an already parsed configuration.
+	 * @param configuration The game configuration.
+	 * @param configurationDirectory The directory that relative paths in the
+	 * configuration are relative to.
+	 * @return True on success, false otherwise.
+	 */
+	protected boolean loadGame(Configuration configuration, File configurationDirectory) {
+		// Clear current configuration
+		gameLogic = null;
+		gameConfigurationDirectory = configurationDirectory;
+		gameConfiguration = configuration;
+		nextPlayerID = 1;
+		if (!verifyConfiguration()) {
+			logger.error("Could not load game.");
 			return false;
 		}
 		// Load all classes and create the objects for the game.
@@ -114,7 +193,7 @@ public class Simulator {
 				logger.error("Could not load classes.");
 				return false;
 			}
-		} catch (ClassNotFoundException | IOException | InvocationTargetException | NoSuchMethodException | InstantiationException | IllegalAccessException e) {
+		} catch (ClassNotFoundException | IOException | InvocationTargetException | NoSuchMethodException | IllegalAccessException e) {
 			logger.error("Failed to load classes.", e);
 			return false;
 		}
@@ -123,9 +202,7 @@ public class Simulator {
 		return true;
 	}
 
-	private boolean verifyConfiguration(File configFile) throws IOException {
-
-		gameConfiguration = ConfigurationParser.loadConfiguration(configFile);
+	private boolean verifyConfiguration() {
 
 		if (gameConfiguration.get("game.package") == null || gameConfiguration.get("game.type") == null || gameConfiguration.get("game.path") == null) {
 			logger.error("Some mandatory configuration entries ('game.package', 'game.type' or 'game.path') are missing.");
@@ -154,12 +231,12 @@ public class Simulator {
 
 	/**
 	 * Loads all the classes from the configuration directory and constructs all
-	 * the objects for the game.
+	 * the objects for the game. The classes and the factories of the objects
+	 * come from the {@link ClassCache}, so they are only resolved by the first
+	 * load of a game.
 	 */
 	@SuppressWarnings("unchecked")
-	private boolean loadClasses() throws IOException, ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
-
-		FileClassLoader fileClassLoader = new FileClassLoader(Simulator.class.getClassLoader());
+	private boolean loadClasses() throws IOException, ClassNotFoundException, NoSuchMethodException, IllegalAccessException, InvocationTargetException {
 
 		//
 		// Load the GameLogic class and constructor
@@ -177,19 +254,18 @@ public class Simulator {
 		if (gameSourceType.equals("jar")) {
 			// The gameLogicSourcePath should be the path to the jar file
 			logger.trace("Loading GameLogic's class from {}", gameLogicSourcePath);
-			gameLogicClass = JarClassLoader.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".GameLogic");
+			gameLogicClass = (Class<GameLogic>) classCache.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".GameLogic");
 		} else if (gameSourceType.equals("class")) {
 			// The gameLogicSourcePath should be a directory, that contains the class
 			String gameLogicClassFilePath = gameLogicSourcePath.getAbsolutePath() + File.separator + gamePackagePath + File.separator + "GameLogic.class";
 			logger.trace("Loading GameLogic's class from {}", gameLogicClassFilePath);
-			gameLogicClass = fileClassLoader.loadClassFromFile(
-					new File(gameLogicClassFilePath)
-			);
+			gameLogicClass = (Class<GameLogic>) classCache.loadClassFromFile(gameLogicSourcePath,
+					new File(gameLogicClassFilePath), gamePackageName + ".GameLogic");
 		} else {
 			logger.error("Invalid source type '{}'.", gameSourceType);
 			return false;
 		}
-		Constructor<GameLogic> gameLogicConstructor = gameLogicClass.getConstructor(Configuration.class, List.class);
+		MethodHandle gameLogicFactory = classCache.getFactory(gameLogicClass, GameLogic.class, Configuration.class, List.class);
 		logger.debug("Loaded the GameLogic class.");
 
 		//
@@ -201,14 +277,13 @@ public class Simulator {
 		if (gameSourceType.equals("jar")) {
 			// The gameLogicSourcePath should still be the path to the jar file
 			logger.trace("Loading PlayerManagerPlayerInterface's class from {}", gameLogicSourcePath);
-			playerManagerPlayerInterfaceClass = JarClassLoader.loadClassFromJar(gameLogicSourcePath.toURI().toURL(),gamePackageName + ".PlayerManagerPlayerInterface");
+			playerManagerPlayerInterfaceClass = (Class<PlayerManagerPlayerInterface>) classCache.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".PlayerManagerPlayerInterface");
 		} else {
 			// The gameLogicSourcePath should still be a directory, that contains the class
 			String playerManagerPlayerInterfaceClassFilePath = gameLogicSourcePath.getAbsolutePath() + File.separator + gamePackagePath + File.separator +"PlayerManagerPlayerInterface.class";
 			logger.trace("Loading PlayerManagerPlayerInterface's class from {}", playerManagerPlayerInterfaceClassFilePath);
-			playerManagerPlayerInterfaceClass = fileClassLoader.loadClassFromFile(
-					new File(playerManagerPlayerInterfaceClassFilePath)
-			);
+			playerManagerPlayerInterfaceClass = (Class<PlayerManagerPlayerInterface>) classCache.loadClassFromFile(gameLogicSourcePath,
+					new File(playerManagerPlayerInterfaceClassFilePath), gamePackageName + ".PlayerManagerPlayerInterface");
 		}
 		logger.debug("Loaded the PlayerManagerPlayerInterface interface.");
 
@@ -216,17 +291,15 @@ public class Simulator {
 		if (gameSourceType.equals("jar")) {
 			// The gameLogicSourcePath should still be the path to the jar file
 			logger.trace("Loading PlayerManager's class from {}", gameLogicSourcePath);
-			playerManagerClass = JarClassLoader.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".PlayerManager");
+			playerManagerClass = (Class<PlayerManager>) classCache.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".PlayerManager");
 		} else {
 			// The gameLogicSourcePath should still be a directory, that contains the class
 			String playerManagerClassFilePath = gameLogicSourcePath.getAbsolutePath() + File.separator + gamePackagePath + File.separator + "PlayerManager.class";
 			logger.trace("Loading PlayerManager's class from {}", playerManagerClassFilePath);
-			playerManagerClass = fileClassLoader.loadClassFromFile(
-					new File(playerManagerClassFilePath)
-			);
+			playerManagerClass = (Class<PlayerManager>) classCache.loadClassFromFile(gameLogicSourcePath,
+					new File(playerManagerClassFilePath), gamePackageName + ".PlayerManager");
 		}
-		Constructor<PlayerManager> playerManagerConstructor = null;
-		playerManagerConstructor = playerManagerClass.getConstructor(Player.class, long.class, Configuration.class);
+		MethodHandle playerManagerFactory = classCache.getFactory(playerManagerClass, PlayerManager.class, Player.class, long.class, Configuration.class);
 		logger.debug("Loaded the PlayerManager class.");
 
 		//
@@ -241,14 +314,13 @@ public class Simulator {
 		if (gameSourceType.equals("jar")) {
 			// The gameLogicSourcePath should still be the path to the jar file
 			logger.trace("Loading PlayerManager's class from {}", gameLogicSourcePath);
-			basePlayerClass = JarClassLoader.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".Player");
+			basePlayerClass = (Class<Player>) classCache.loadClassFromJar(gameLogicSourcePath.toURI().toURL(), gamePackageName + ".Player");
 		} else {
 			// The gameLogicSourcePath should still be a directory, that contains the class
 			String playerClassFilePath = gameLogicSourcePath.getAbsolutePath() + File.separator + gamePackagePath + File.separator + "Player.class";
 			logger.trace("Loading Player's class from {}", playerClassFilePath);
-			basePlayerClass = fileClassLoader.loadClassFromFile(
-					new File(playerClassFilePath)
-			);
+			basePlayerClass = (Class<Player>) classCache.loadClassFromFile(gameLogicSourcePath,
+					new File(playerClassFilePath), gamePackageName + ".Player");
 		}
 		logger.debug("Loaded the Player class.");
 
@@ -286,31 +358,36 @@ public class Simulator {
 			if (!loadedPlayerClasses.containsKey(playerClassName)) {
 				if (playerSourceType.equals("jar")) {
 					logger.trace("Loading player's class from {}.", playerSourcePath);
-					playerClass = JarClassLoader.loadClassFromJar(new File(playerSourcePath).toURI().toURL(), gamePackageName + ".Players." + playerClassName);
+					playerClass = (Class<Player>) classCache.loadClassFromJar(new File(playerSourcePath).toURI().toURL(), gamePackageName + ".Players." + playerClassName);
 				} else {
 					String playerClassFilePath = new File(playerSourcePath).getAbsolutePath() + File.separator + playerClassName + ".class";
 					logger.trace("Loading player's class from {}", playerClassFilePath);
-					playerClass = fileClassLoader.loadClassFromFile(
-							new File(playerClassFilePath)
-					);
+					playerClass = (Class<Player>) classCache.loadClassFromFile(gameLogicSourcePath,
+							new File(playerClassFilePath), gamePackageName + ".Players." + playerClassName);
 				}
 				loadedPlayerClasses.put(playerClassName, playerClass);
 			} else {
 				playerClass = loadedPlayerClasses.get(playerClassName);
 			}
-			// Get the constructor
-			Constructor<Player> playerConstructor = null;
-			playerConstructor = playerClass.getConstructor();
+			// Get the factory, and the configuration shared by the instances
+			MethodHandle playerFactory = classCache.getFactory(playerClass, Player.class);
+			Configuration playerConfiguration = gameConfiguration.getSubset("player." + playerNumber + ".");
+			playerManagers.ensureCapacity(playerManagers.size() + playerInstances);
 			for (int i = 1; i <= playerInstances; i++) {
-				// Construct the player
-				Player player = null;
-				player = playerConstructor.newInstance();
-				// Construct a PlayerManager for it
-				PlayerManager playerManager = null;
-				Configuration playerConfiguration = gameConfiguration.getSubset("player." + playerNumber + ".");
-				playerManager = playerManagerConstructor.newInstance(player, nextPlayerID, playerConfiguration);
-				// Add the player with its manager to the array
-				playerManagers.add(playerManager);
+				try {
+					// Construct the player
+					Player player = (Player) playerFactory.invokeExact();
+					// Construct a PlayerManager for it
+					PlayerManager playerManager = (PlayerManager) playerManagerFactory.invokeExact(player, nextPlayerID, playerConfiguration);
+					// Add the player with its manager to the array
+					playerManagers.add(playerManager);
+				} catch (Error e) {
+					// Out of memory and the like are not the player's failure
+					throw e;
+				} catch (Throwable e) {
+					// The constructors failed, as reported by reflection
+					throw new InvocationTargetException(e);
+				}
 				++nextPlayerID;
 			}
 		}
@@ -318,7 +395,13 @@ public class Simulator {
 		//
 		// Construct and prepare the GameLogic object
 		//
-		this.gameLogic = gameLogicConstructor.newInstance(gameConfiguration, playerManagers);
+		try {
+			this.gameLogic = (GameLogic<?>) gameLogicFactory.invokeExact(gameConfiguration, (List) playerManagers);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
 		logger.debug("The GameLogic was constructed with all the game elements.");
 		return true;
 	}
@@ -0,0 +1,255 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import hu.hgj.improvedconfiguration.Configuration;
+import hu.hgj.improvedconfiguration.ConfigurationParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Round-robin tournament over all the player entries ('player.[n].*') of a
+ * game configuration. Every ordered pair of entries plays the given number
+ * of games, so every player plays every other player in both seats. The
+ * games of a pairing are played by a two player game configuration, that is
+ * created from the original by replacing the player entries with the two
+ * entries of the pairing (as 'player.1.*' and 'player.2.*'), and applying the
+ * 'tournament.seat.[n].*' entries on top of them (like the characters of
+ * Gomoku, that have to differ between the seats).
+ *
+ * The games are split into small jobs (a few games of a pairing), that are
+ * queued pairing by pairing, and pulled by the workers one by one. This way
+ * every worker stays busy until the queue is empty, the long pairings are
+ * spread over all the workers instead of ending up at the tail of the
+ * tournament, and a worker mostly keeps playing the game it has loaded.
+ */
+public class Tournament {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * The number of the player entries, in the order of the entries.
+	 */
+	private final List<Integer> entries = new ArrayList<>();
+
+	/**
+	 * The two player game configuration of every pairing.
+	 */
+	private final List<Configuration> pairings = new ArrayList<>();
+
+	/**
+	 * The entry number of the players sitting in the seats of every pairing,
+	 * indexed by the seat number (starting with 1).
+	 */
+	private final List<int[]> pairingSeats = new ArrayList<>();
+
+	/**
+	 * The jobs in the order they are played.
+	 */
+	private final List<Job> jobs = new ArrayList<>();
+
+	/**
+	 * The index of the next job to be played by any of the workers.
+	 */
+	private final AtomicInteger nextJob = new AtomicInteger(0);
+
+	private final Configuration configuration;
+
+	private final File configurationDirectory;
+
+	private final long repetitions;
+
+	private final int threads;
+
+	private final boolean virtual;
+
+	/**
+	 * A few games of a pairing, played by one worker at once.
+	 */
+	private static class Job {
+
+		private final int pairing;
+
+		private final long games;
+
+		private Job(int pairing, long games) {
+			this.pairing = pairing;
+			this.games = games;
+		}
+
+	}
+
+	/**
+	 * Construct the tournament, and schedule all the pairings.
+	 * @param configFile The game configuration file with all the players.
+	 * @param repetitions The number of games per ordered pair of players.
+	 * @param threads The number of worker threads.
+	 * @throws IOException If the configuration file could not be read.
+	 */
+	public Tournament(File configFile, long repetitions, int threads) throws IOException {
+		this(configFile, repetitions, threads, false);
+	}
+
+	/**
+	 * Construct the tournament, and schedule all the pairings.
+	 * @param configFile The game configuration file with all the players.
+	 * @param repetitions The number of games per ordered pair of players.
+	 * @param threads The number of workers, that is the number of games
+	 * played at once.
+	 * @param virtual Run every worker on its own virtual thread, see {@link
+	 * VirtualThreads}.
+	 * @throws IOException If the configuration file could not be read.
+	 */
+	public Tournament(File configFile, long repetitions, int threads, boolean virtual) throws IOException {
+		this.configuration = ConfigurationParser.loadConfiguration(configFile);
+		this.configurationDirectory = configFile.getAbsoluteFile().getParentFile();
+		this.repetitions = repetitions;
+		this.threads = threads;
+		this.virtual = virtual;
+		for (String key : configuration.getMatchingEntries("player.[0-9]+.class").keySet()) {
+			entries.add(Integer.parseInt(key.replaceAll("[^0-9]", "")));
+		}
+		Collections.sort(entries);
+		for (int first : entries) {
+			for (int second : entries) {
+				if (first != second) {
+					pairings.add(createPairing(first, second));
+					pairingSeats.add(new int[]{0, first, second});
+				}
+			}
+		}
+		schedule();
+	}
+
+	/**
+	 * Create the game configuration of a pairing.
+	 * @param first The entry number of the player in the first seat.
+	 * @param second The entry number of the player in the second seat.
+	 * @return The two player game configuration.
+	 */
+	private Configuration createPairing(int first, int second) {
+		HashMap<String, String> pairing = new HashMap<>();
+		for (Map.Entry<String, String> entry : configuration.getEntries().entrySet()) {
+			if (!entry.getKey().startsWith("player.")) {
+				pairing.put(entry.getKey(), entry.getValue());
+			}
+		}
+		int[] seats = {first, second};
+		for (int seat = 1; seat <= seats.length; seat++) {
+			String from = "player." + seats[seat - 1] + ".";
+			String to = "player." + seat + ".";
+			for (Map.Entry<String, String> entry : configuration.getSubsetEntries(from).entrySet()) {
+				pairing.put(to + entry.getKey().substring(from.length()), entry.getValue());
+			}
+			String seatPrefix = "tournament.seat." + seat + ".";
+			for (Map.Entry<String, String> entry : configuration.getSubsetEntries(seatPrefix).entrySet()) {
+				pairing.put(to + entry.getKey().substring(seatPrefix.length()), entry.getValue());
+			}
+			pairing.put(to + "instances", "1");
+		}
+		return new Configuration(pairing);
+	}
+
+	/**
+	 * Split the games of the pairings into jobs. The jobs are small enough to
+	 * have a few of them for every worker at the end of the tournament. The
+	 * jobs of a pairing are queued together, so a worker taking the next job
+	 * mostly gets the same pairing, and does not load the game again (see
+	 * {@link #work()}).
+	 */
+	private void schedule() {
+		long chunk = configuration.getInteger("tournament.chunk") != null
+				? configuration.getInteger("tournament.chunk")
+				: (repetitions * pairings.size()) / (threads * 16L);
+		chunk = Math.max(1, Math.min(chunk, repetitions));
+		for (int pairing = 0; pairing < pairings.size(); pairing++) {
+			for (long scheduled = 0; scheduled < repetitions; scheduled += chunk) {
+				jobs.add(new Job(pairing, Math.min(chunk, repetitions - scheduled)));
+			}
+		}
+		logger.info("Scheduled {} pairings of {} players in {} jobs of {} games.", pairings.size(), entries.size(), jobs.size(), chunk);
+	}
+
+	/**
+	 * Play all the games and wait for them to finish.
+	 * @return The merged {@link Results} of all the pairings, collected by
+	 * the entry number of the players.
+	 * @throws InterruptedException If the waiting thread is interrupted.
+	 */
+	public Results play() throws InterruptedException {
+		logger.info("Playing {} games on {} {}threads.", repetitions * pairings.size(), threads, virtual ? "virtual " : "");
+		ExecutorService executor = VirtualThreads.newWorkerExecutor(threads, virtual);
+		List<Future<Results>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			futures.add(executor.submit(new Callable<Results>() {
+				@Override
+				public Results call() {
+					return work();
+				}
+			}));
+		}
+		executor.shutdown();
+		Results results = new Results();
+		for (int entry : entries) {
+			String name = configuration.get("player." + entry + ".name");
+			results.setName(entry, name != null ? name : configuration.get("player." + entry + ".class"));
+		}
+		for (Future<Results> future : futures) {
+			try {
+				results.merge(future.get());
+			} catch (ExecutionException e) {
+				logger.error("Worker failed.", e.getCause());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * The loop of a single worker, that plays jobs until the queue is empty.
+	 * The game of the pairing is only loaded again if the next job belongs to
+	 * a different pairing.
+	 * @return The {@link Results} of the games played by this worker,
+	 * collected by the entry number of the players.
+	 */
+	private Results work() {
+		Results results = new Results();
+		Simulator simulator = new Simulator();
+		int loadedPairing = -1;
+		int index;
+		while ((index = nextJob.getAndIncrement()) < jobs.size()) {
+			Job job = jobs.get(index);
+			Results jobResults = new Results();
+			if (job.pairing != loadedPairing) {
+				loadedPairing = simulator.loadGame(pairings.get(job.pairing), configurationDirectory) ? job.pairing : -1;
+			}
+			simulator.playGames(job.games, jobResults);
+			simulator.recordMetrics(jobResults);
+			results.merge(jobResults, pairingSeats.get(job.pairing));
+		}
+		return results;
+	}
+
+}
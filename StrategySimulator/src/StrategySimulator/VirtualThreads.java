@@ -0,0 +1,101 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the executors of the workers on virtual threads, if the JVM
+ * supports them (Java 21 or newer). The simulator is compiled for older JVMs,
+ * so the virtual threads are created through reflection.
+ * <p>
+ * A virtual thread blocked in a player (waiting for a human, a remote
+ * process or a timed out call) does not hold an OS thread, so a single JVM
+ * can play tens of thousands of games at once. Virtual threads are not
+ * preempted though, so CPU bound players gain nothing from them.
+ */
+public class VirtualThreads {
+
+	private static final Logger logger = LoggerFactory.getLogger(VirtualThreads.class);
+
+	/**
+	 * The Thread.Builder.OfVirtual of the JVM, or null if there are no
+	 * virtual threads.
+	 */
+	private static final Object builder = createBuilder();
+
+	private VirtualThreads() {
+	}
+
+	private static Object createBuilder() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			return builderClass.getMethod("name", String.class, long.class).invoke(builder, "game-", 0L);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return True if the JVM supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return builder != null;
+	}
+
+	/**
+	 * Create an executor, that runs every task on a new virtual thread.
+	 * @return The executor, or null if the JVM does not support virtual
+	 * threads.
+	 */
+	public static ExecutorService newThreadPerTaskExecutor() {
+		if (builder == null) {
+			return null;
+		}
+		try {
+			Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+			Method executor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) executor.invoke(null, factory.invoke(builder));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.warn("Could not create the virtual thread executor.", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Create the executor of the workers.
+	 * @param threads The number of the workers.
+	 * @param virtual Run every worker on its own virtual thread, if the JVM
+	 * supports them.
+	 * @return A thread per task executor of virtual threads, or a fixed
+	 * thread pool of the given size.
+	 */
+	public static ExecutorService newWorkerExecutor(int threads, boolean virtual) {
+		if (virtual) {
+			ExecutorService executor = newThreadPerTaskExecutor();
+			if (executor != null) {
+				return executor;
+			}
+			logger.warn("Virtual threads are not supported by this JVM (Java 21 is needed), using {} platform threads.", threads);
+		}
+		return Executors.newFixedThreadPool(threads);
+	}
+
+}
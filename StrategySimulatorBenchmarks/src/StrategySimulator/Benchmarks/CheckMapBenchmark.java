@@ -0,0 +1,107 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Benchmarks;
+
+import Gomoku.Board;
+import hu.hgj.improvedconfiguration.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full board scan and the incremental result check of the Gomoku game,
+ * on a nearly full board without five in a row, which is the worst case of
+ * both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class CheckMapBenchmark {
+
+	/**
+	 * A Gomoku game with a prepared board and public checks.
+	 */
+	public static class CheckedGame extends Gomoku.GameLogic {
+
+		public CheckedGame(int size) {
+			super(new Configuration(), new ArrayList<StrategySimulator.Library.PlayerManager>());
+			width = size;
+			height = size;
+			board = new Board(size, size);
+			// Pairs of columns alternate by row, and every seventh cell is
+			// left empty, so nobody has five in a row.
+			for (int x = 0; x < size; x++) {
+				for (int y = 0; y < size; y++) {
+					if ((x + y * size) % 7 != 6) {
+						board.set(board.index(x, y), ((x / 2 + y) % 2) + 1);
+					}
+				}
+			}
+			emptyCells = board.getSize() - board.countStones();
+		}
+
+		public int checkMapPublic() {
+			return checkMap();
+		}
+
+		public int checkMovePublic(int x, int y) {
+			return checkMove(x, y);
+		}
+
+	}
+
+	@Param({"10", "19", "50"})
+	public int size;
+
+	private CheckedGame game;
+
+	private int x;
+
+	private int y;
+
+	@Setup
+	public void setup() {
+		game = new CheckedGame(size);
+		// The check of the last move needs a stone in the middle
+		x = size / 2 + ((size / 2 + size / 2 * size) % 7 == 6 ? 1 : 0);
+		y = size / 2;
+		if (game.checkMapPublic() != 0 || game.checkMovePublic(x, y) != 0) {
+			throw new IllegalStateException("The prepared board should not have a result.");
+		}
+	}
+
+	@Benchmark
+	public int checkMap() {
+		return game.checkMapPublic();
+	}
+
+	@Benchmark
+	public int checkMove() {
+		return game.checkMovePublic(x, y);
+	}
+
+}
@@ -0,0 +1,124 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Benchmarks;
+
+import Gomoku.ForwardModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Making and taking back a move on the Gomoku {@link ForwardModel}, with the
+ * result check, on a half full board, a two ply search of all the moves of
+ * the board, and collecting the moves worth searching in an opening (a few
+ * stones in the middle of the board).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class ForwardModelBenchmark {
+
+	@Param({"10", "19", "50"})
+	public int size;
+
+	private ForwardModel model;
+
+	private ForwardModel opening;
+
+	private int[] moves;
+
+	private int next = 0;
+
+	@Setup
+	public void setup() {
+		model = new ForwardModel(size, size);
+		// Stones on every other cell, the players alternating by pairs of
+		// columns and by rows, so nobody has five in a row
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				int index = model.index(x, y);
+				if ((x + y) % 2 == 0 && model.getSideToMove() == ((x / 2 + y) % 2) + 1) {
+					model.make(index);
+				}
+			}
+		}
+		if (model.isOver()) {
+			throw new IllegalStateException("The prepared board should not have a result.");
+		}
+		// Twenty stones in a spiral around the center
+		opening = new ForwardModel(size, size);
+		int x = size / 2;
+		int y = size / 2;
+		for (int stone = 0, length = 1; stone < 20; length++) {
+			int dx = length % 2 == 1 ? 1 : -1;
+			for (int i = 0; i < length && stone < 20; i++, stone++) {
+				opening.make(opening.index(x, y));
+				x += dx;
+			}
+			for (int i = 0; i < length && stone < 20; i++, stone++) {
+				opening.make(opening.index(x, y));
+				y += dx;
+			}
+		}
+		moves = new int[opening.getMaxMoves()];
+	}
+
+	@Benchmark
+	public int makeUnmake() {
+		do {
+			next = next + 1 < model.getSize() ? next + 1 : 0;
+		} while (!model.isEmpty(next));
+		model.make(next);
+		int winner = model.getWinner();
+		model.unmake();
+		return winner;
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		return opening.generateMoves(moves);
+	}
+
+	@Benchmark
+	public int searchTwoPlies() {
+		int results = 0;
+		for (int first = 0; first < model.getSize(); first++) {
+			if (model.isLegal(first)) {
+				model.make(first);
+				for (int second = 0; second < model.getSize(); second++) {
+					if (model.isLegal(second)) {
+						model.make(second);
+						results += model.getWinner();
+						model.unmake();
+					}
+				}
+				model.unmake();
+			}
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,124 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Benchmarks;
+
+import Gomoku.BoardView;
+import Gomoku.GameLogic;
+import Gomoku.Move;
+import Gomoku.PlayerManager;
+import hu.hgj.improvedconfiguration.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole Gomoku games (reset, initialise, steps and finalise) between two
+ * scripted players, so the time is spent in the framework and the game, not
+ * in the players.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class GomokuGameBenchmark {
+
+	/**
+	 * A deterministic player, that walks the cells with a fixed stride from a
+	 * fixed offset, and places its stone to the first empty cell it finds.
+	 */
+	public static class ScriptedPlayer extends Gomoku.Player {
+
+		private final int offset;
+
+		private final int stride;
+
+		private int next;
+
+		public ScriptedPlayer(int offset, int stride) {
+			this.offset = offset;
+			this.stride = stride;
+		}
+
+		@Override
+		protected boolean initialise() {
+			next = offset;
+			return true;
+		}
+
+		@Override
+		protected int move(BoardView board, char empty, char you, char enemy) {
+			int size = board.getSize();
+			for (int i = 0; i < size; i++) {
+				int index = next;
+				next = (next + stride) % size;
+				if (board.isEmpty(index)) {
+					return Move.pack(board.getX(index), board.getY(index));
+				}
+			}
+			return Move.NONE;
+		}
+
+	}
+
+	@Param({"10", "19"})
+	public int size;
+
+	private GameLogic game;
+
+	@Setup
+	public void setup() {
+		HashMap<String, String> entries = new HashMap<>();
+		entries.put("game.width", Integer.toString(size));
+		entries.put("game.height", Integer.toString(size));
+		entries.put("player.1.character", "X");
+		entries.put("player.2.character", "O");
+		Configuration configuration = new Configuration(entries);
+		List<StrategySimulator.Library.PlayerManager> playerManagers = new ArrayList<>();
+		// Strides relatively prime to the board sizes, so every cell is visited
+		playerManagers.add(new PlayerManager(new ScriptedPlayer(0, 7), 1, configuration.getSubset("player.1.")));
+		playerManagers.add(new PlayerManager(new ScriptedPlayer(size / 2, 13), 2, configuration.getSubset("player.2.")));
+		game = new GameLogic(configuration, playerManagers);
+	}
+
+	/**
+	 * Play a whole game.
+	 * @return The number of the winner.
+	 */
+	@Benchmark
+	public int playGame() {
+		if (!game.resetWrapper() || !game.initialiseWrapper()) {
+			throw new IllegalStateException("Could not start the game.");
+		}
+		while (game.stepGameWrapper()) {
+			// Just step
+		}
+		game.finaliseWrapper();
+		return game.getWinner();
+	}
+
+}
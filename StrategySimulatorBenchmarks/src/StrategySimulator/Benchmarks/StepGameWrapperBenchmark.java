@@ -0,0 +1,95 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Benchmarks;
+
+import EmptyGame.PlayerManager;
+import hu.hgj.improvedconfiguration.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of {@link StrategySimulator.Library.GameLogic#stepGameWrapper()}
+ * with an EmptyGame, whose step does nothing at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class StepGameWrapperBenchmark {
+
+	/**
+	 * An EmptyGame, that never ends and does nothing in its steps.
+	 */
+	public static class EndlessGame extends EmptyGame.GameLogic {
+
+		public EndlessGame(Configuration configuration, List<StrategySimulator.Library.PlayerManager> players) {
+			super(configuration, players);
+		}
+
+		@Override
+		protected boolean stepGame() {
+			return true;
+		}
+
+	}
+
+	/**
+	 * An EmptyGame player, that does nothing.
+	 */
+	public static class IdlePlayer extends EmptyGame.Player {
+
+		@Override
+		protected boolean step() {
+			return true;
+		}
+
+	}
+
+	@Param({"1", "100"})
+	public int players;
+
+	private EndlessGame game;
+
+	@Setup
+	public void setup() {
+		Configuration configuration = new Configuration();
+		List<StrategySimulator.Library.PlayerManager> playerManagers = new ArrayList<>();
+		for (int i = 1; i <= players; i++) {
+			playerManagers.add(new PlayerManager(new IdlePlayer(), i, configuration.getSubset("player." + i + ".")));
+		}
+		game = new EndlessGame(configuration, playerManagers);
+		game.resetWrapper();
+		game.initialiseWrapper();
+	}
+
+	@Benchmark
+	public boolean stepGameWrapper() {
+		return game.stepGameWrapper();
+	}
+
+}
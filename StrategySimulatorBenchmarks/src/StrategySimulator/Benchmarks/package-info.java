@@ -0,0 +1,22 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+/**
+ * JMH benchmarks of the simulation core: the overhead of the {@link
+ * StrategySimulator.Library.GameLogic} wrappers, the Gomoku result checks
+ * and full Gomoku games with scripted players. The benchmarks of the
+ * Simulator itself are in the StrategySimulator package, as they use its
+ * protected methods. Run them all with 'gradle benchmark', or some of them
+ * with 'gradle benchmark -Pbenchmarks=CheckMap'.
+ * @version 1.6.0
+ */
+package StrategySimulator.Benchmarks;
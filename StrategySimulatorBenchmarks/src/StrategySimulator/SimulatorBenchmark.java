@@ -0,0 +1,107 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a Gomoku game with {@link Simulator#loadGame(File)}: parsing the
+ * configuration, loading the classes and constructing the objects. The cold
+ * benchmark measures the first load in a fresh JVM, the warm one measures the
+ * loads after the classes were loaded and the code was compiled. This is in
+ * the StrategySimulator package, as the method is protected.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+	private File configFile;
+
+	private Simulator simulator;
+
+	@Setup
+	public void setup() throws IOException {
+		// The game is loaded from wherever the Gomoku classes are
+		String gamePath = new File(Gomoku.GameLogic.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getAbsolutePath();
+		configFile = File.createTempFile("SimulatorBenchmark", ".conf");
+		PrintStream stream = new PrintStream(configFile, "UTF-8");
+		stream.println("game.name = Gomoku");
+		stream.println("game.package = Gomoku");
+		stream.println("game.type = jar");
+		stream.println("game.path = " + gamePath);
+		stream.println("game.width = 19");
+		stream.println("game.height = 19");
+		stream.println("player.1.name = Player One");
+		stream.println("player.1.class = HumanPlayer");
+		stream.println("player.1.character = X");
+		stream.println("player.2.name = Player Two");
+		stream.println("player.2.class = HumanPlayer");
+		stream.println("player.2.character = O");
+		stream.close();
+		simulator = new Simulator();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (!configFile.delete()) {
+			configFile.deleteOnExit();
+		}
+	}
+
+	/**
+	 * The first load of the game in a fresh JVM.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Fork(value = 10, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	public boolean loadGameCold() {
+		return load();
+	}
+
+	/**
+	 * Loading the game again and again.
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public boolean loadGameWarm() {
+		return load();
+	}
+
+	private boolean load() {
+		if (!simulator.loadGame(configFile)) {
+			throw new IllegalStateException("Could not load the game from '" + configFile + "'.");
+		}
+		return true;
+	}
+
+}
@@ -16,46 +16,106 @@ import hu.hgj.improvedconfiguration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Array;
 import java.util.*;
 
 /**
  * Abstract implementation of the {@link GameLogic} managing the whole
  * simulation process that the implementation can build on.
+ * @param <M> The type of the {@link PlayerManager}s of the game.
  */
-public abstract class GameLogic {
+public abstract class GameLogic<M extends PlayerManager> {
 
 	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 	/**
-	 * The {@link PlayerManager}s, responsible for their {@link Player}s. The
-	 * first {@link PlayerManager}'s key is 1.
+	 * The {@link PlayerManager}s, responsible for their {@link Player}s,
+	 * indexed by their number. The first {@link PlayerManager} is at index 1,
+	 * index 0 is unused. The array has the type of the game's {@link
+	 * PlayerManager}s, so the implementations can use it without casts.
 	 */
+	protected final M[] playerManagers;
+
+	/**
+	 * The {@link PlayerManager}s by their number, the first one's key is 1.
+	 * Filled once by the constructor, changing it has no effect on the game.
+	 * @deprecated Use the {@link #playerManagers} array.
+	 */
+	@Deprecated
 	protected Map<Integer, PlayerManager> superPlayerManagers = new HashMap<>();
 
+	/**
+	 * Calls all the {@link #playerManagers} at once, for example to step the
+	 * players of a simultaneous-move game in {@link #stepGame()}. The
+	 * parallelism is set from the 'game.parallelism' configuration entry on
+	 * every reset (1, calling the players one after another, by default).
+	 */
+	protected final PlayerCalls<M> playerCalls;
+
+	/**
+	 * Resets, initialises and finalises the {@link #playerManagers}, in
+	 * fail-fast mode: after the first failure, the players not called yet are
+	 * skipped. The parallelism is set from the 'game.lifecycle.parallelism'
+	 * configuration entry on every reset (1, calling the players one after
+	 * another, by default). The calls of every player are limited by its
+	 * 'timeout.lifecycle' (see {@link PlayerManager#resetPlayer()}).
+	 */
+	private final PlayerCalls<M> lifecycleCalls;
+
 	/**
 	 * The custom per game configuration from the configuration file.
 	 */
 	protected Configuration configuration;
 
 	/**
-	 * Fills up the local {@link #superPlayerManagers} {@link Map}, starting
-	 * with the key 1. The implementations can extend the constructor and use
-	 * it as usual, as long as they call this one (the parent's) first. Also,
-	 * as a general rule, every initialisation that can be moved, should be
-	 * moved to the {@link #reset()} method.
-	 * from this object.
+	 * The time spent in the wrappers of the game phases, including the time
+	 * spent by the {@link PlayerManager}s.
+	 */
+	protected final Metrics metrics = new Metrics();
+
+	/**
+	 * Fills up the {@link #playerManagers} array, starting with the index 1.
+	 * The implementations can extend the constructor and use it as usual, as
+	 * long as they call this one (the parent's) first. Also, as a general
+	 * rule, every initialisation that can be moved, should be moved to the
+	 * {@link #reset()} method.
 	 * @param configuration The custom per game configuration from the
 	 * configuration file.
-	 * @param superPlayerManagers A list with all the player managers.
+	 * @param playerManagers A list with all the player managers.
+	 * @param playerManagerType The class of the game's player managers.
+	 * @throws ClassCastException If a player manager is not of the given
+	 * class.
 	 */
-	public GameLogic(Configuration configuration, List<PlayerManager> superPlayerManagers) {
+	@SuppressWarnings("unchecked")
+	public GameLogic(Configuration configuration, List<PlayerManager> playerManagers, Class<M> playerManagerType) {
 		this.configuration = configuration;
-		Integer i = 1;
-		for (PlayerManager playerManager : superPlayerManagers) {
-			this.superPlayerManagers.put(i++, playerManager);
+		this.playerManagers = (M[]) Array.newInstance(playerManagerType, playerManagers.size() + 1);
+		int number = 1;
+		for (PlayerManager playerManager : playerManagers) {
+			this.playerManagers[number] = playerManagerType.cast(playerManager);
+			this.superPlayerManagers.put(number++, playerManager);
 			playerManager.setGameLogic(this);
 		}
-		logger.debug("StrategySimulator.Library.GameLogic constructed. Stored the List of superPlayerManagers.");
+		this.playerCalls = new PlayerCalls<>(this.playerManagers);
+		this.lifecycleCalls = new PlayerCalls<>(this.playerManagers);
+		this.lifecycleCalls.setFailFast(true);
+		logger.debug("StrategySimulator.Library.GameLogic constructed. Stored the List of playerManagers.");
+	}
+
+	/**
+	 * Fills up the {@link #playerManagers} array with {@link PlayerManager}s
+	 * of any class, for the implementations written before the type of the
+	 * player managers was added.
+	 * @param configuration The custom per game configuration from the
+	 * configuration file.
+	 * @param playerManagers A list with all the player managers.
+	 * @deprecated Use {@link #GameLogic(Configuration, List, Class)} with the
+	 * class of the game's player managers.
+	 */
+	@Deprecated
+	@SuppressWarnings("unchecked")
+	public GameLogic(Configuration configuration, List<PlayerManager> playerManagers) {
+		this(configuration, playerManagers, (Class<M>) PlayerManager.class);
 	}
 
 	/**
@@ -69,18 +129,46 @@ public abstract class GameLogic {
 	/**
 	 * Return the number of {@link PlayerManager}s == number of {@link
 	 * Player}s.
-	 * @return The size of {@link #superPlayerManagers}.
+	 * @return The number of the {@link #playerManagers}.
+	 */
+	public int getNumberOfPlayerManagers() {
+		return playerManagers.length - 1;
+	}
+
+	/**
+	 * Return the {@link PlayerManager} with the given number.
+	 * @param number The number of the {@link PlayerManager}, starting with 1.
+	 * @return The {@link PlayerManager}, or null if there is no such number.
 	 */
-	public Integer getNumberOfPlayerManagers() {
-		return superPlayerManagers.size();
+	public M getPlayerManager(int number) {
+		return number >= 1 && number < playerManagers.length ? playerManagers[number] : null;
 	}
 
-	// TODO: Return the playermanagers to the Framework
+	/**
+	 * Getter for the {@link #metrics}. The time spent by the {@link Player}s
+	 * is available from their {@link PlayerManager#getMetrics()}.
+	 * @return The timing of the game phases, accumulated over all the games
+	 * since the metrics were last reset.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Return the number of the {@link PlayerManager} that won the last game.
+	 * Implementations should override this if the game has a winner, so the
+	 * Simulator can collect statistics over many games.
+	 * @return The number of the winning {@link PlayerManager} (starting with
+	 * 1), or 0 if the game is a draw or has no winner at all.
+	 */
+	public int getWinner() {
+		return 0;
+	}
 
 	/**
 	 * The number of the current (or already completed) round.
 	 */
-	protected Integer round = 0;
+	protected int round = 0;
 
 	/**
 	 * State enum to represent the {@link #state} of the object.
@@ -237,27 +325,26 @@ public abstract class GameLogic {
 			throw new IllegalStateException("The simulation is already reset.");
 		}
 
+		long time = System.nanoTime();
+
+		Integer parallelism = configuration.getInteger("game.parallelism");
+		playerCalls.setParallelism(parallelism != null ? parallelism : 1);
+		parallelism = configuration.getInteger("game.lifecycle.parallelism");
+		lifecycleCalls.setParallelism(parallelism != null ? parallelism : 1);
+
 		// Try to reset the GameLogic
 		boolean result = reset();
 
-		// Try to reset the Players, if the GameLogic reset was successful
-		boolean playersResult = true;
+		// Reset the Players, if the GameLogic was successful, then call the
+		// resetAfter() method, if the Players were successful too
 		if (result) {
-			for (Iterator<PlayerManager> it = superPlayerManagers.values().iterator(); it.hasNext() && playersResult; ) {
-				PlayerManager playerManager = it.next();
-				boolean playerResult = playerManager.resetPlayer();
-				playersResult &= playerResult;
-				if (playerResult) {
-					logger.debug("Successfully reset {}.", playerManager.getPlayerIdentity());
-				} else {
-					logger.debug("Could not reset {}.", playerManager.getPlayerIdentity());
-				}
-			}
+			result = callPlayers(PlayerCalls.RESET, "Reset");
+		}
+		if (result) {
+			result = resetAfter();
 		}
-		result &= playersResult;
 
-		// Call the resetAfter() method
-		result &= resetAfter();
+		metrics.record(Metrics.Phase.RESET, System.nanoTime() - time);
 
 		if (result) {
 			state = State.RESET;
@@ -282,27 +369,21 @@ public abstract class GameLogic {
 			throw new IllegalStateException("The simulation is already initialised or finised.");
 		}
 
+		long time = System.nanoTime();
+
 		// Initialise the GameLogic first
 		boolean result = initialise();
 
-		// Try to initialise the Players, if the GameLogic initialise was successful
-		boolean playersResult = true;
+		// Initialise the Players, if the GameLogic was successful, then call the
+		// initialiseAfter() method, if the Players were successful too
 		if (result) {
-			for (Iterator<PlayerManager> it = superPlayerManagers.values().iterator(); it.hasNext() && playersResult; ) {
-				PlayerManager playerManager = it.next();
-				boolean playerResult = playerManager.initialisePlayer();
-				playersResult &= playerResult;
-				if (playerResult) {
-					logger.debug("Successfully initialised {}.", playerManager.getPlayerIdentity());
-				} else {
-					logger.debug("Could not initialised {}.", playerManager.getPlayerIdentity());
-				}
-			}
+			result = callPlayers(PlayerCalls.INITIALISE, "Initialisation");
+		}
+		if (result) {
+			result = initialiseAfter();
 		}
-		result &= playersResult;
 
-		// Call the initialiseAfter() method
-		result &= initialiseAfter();
+		metrics.record(Metrics.Phase.INITIALISE, System.nanoTime() - time);
 
 		if (result) {
 			state = State.INITIALISED;
@@ -316,7 +397,8 @@ public abstract class GameLogic {
 
 	/**
 	 * This method wraps the {@link #stepGame()} method to measure the elapsed
-	 * time, change the state and tick the {@link #round} variable.
+	 * time into the {@link #metrics}, change the state and tick the {@link
+	 * #round} variable.
 	 * @return The return value from {@link #stepGame()}.
 	 * @throws IllegalStateException If the method was called in an illegal
 	 * state.
@@ -330,11 +412,16 @@ public abstract class GameLogic {
 
 		++round;
 
-		logger.trace("Starting round {}.", round);
-		long time = Calendar.getInstance().getTimeInMillis();
+		if (logger.isTraceEnabled()) {
+			logger.trace("Starting round {}.", round);
+		}
+		long time = System.nanoTime();
 		boolean result = stepGame();
-		time = Calendar.getInstance().getTimeInMillis() - time;
-		logger.trace("Round {} finished in {} ms.", round, time);
+		time = System.nanoTime() - time;
+		metrics.record(Metrics.Phase.STEP, time);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Round {} finished in {} ns.", round, time);
+		}
 
 		if (result) {
 			if (state != State.STARTED) {
@@ -361,27 +448,21 @@ public abstract class GameLogic {
 			throw new IllegalStateException("The simulation can only be finalised after it is finised.");
 		}
 
+		long time = System.nanoTime();
+
 		// Finalise the GameLogic first
 		boolean result = finalise();
 
-		// Try to finalise the Players, if the GameLogic finalisation was successful
-		boolean playersResult = true;
+		// Finalise the Players, if the GameLogic was successful, then call the
+		// finaliseAfter() method, if the Players were successful too
 		if (result) {
-			for (Iterator<PlayerManager> it = superPlayerManagers.values().iterator(); it.hasNext() && playersResult; ) {
-				PlayerManager playerManager = it.next();
-				boolean playerResult = playerManager.finalisePlayer();
-				playersResult &= playerResult;
-				if (playerResult) {
-					logger.debug("Successfully finalised {}.", playerManager.getPlayerIdentity());
-				} else {
-					logger.debug("Could not finalise {}.", playerManager.getPlayerIdentity());
-				}
-			}
+			result = callPlayers(PlayerCalls.FINALISE, "Finalisation");
+		}
+		if (result) {
+			result = finaliseAfter();
 		}
-		result &= playersResult;
 
-		// Call the finaliseAfter() method
-		result &= finaliseAfter();
+		metrics.record(Metrics.Phase.FINALISE, System.nanoTime() - time);
 
 		if (result) {
 			state = State.FINALISED;
@@ -393,4 +474,30 @@ public abstract class GameLogic {
 		return result;
 	}
 
+	/**
+	 * Make a lifecycle call to all the {@link #playerManagers} with the {@link
+	 * #lifecycleCalls}, and log the results in the order of the players.
+	 * @param call The lifecycle call.
+	 * @param phase The name of the phase for the log.
+	 * @return True if all the players were successful.
+	 */
+	private boolean callPlayers(PlayerCalls.Call<PlayerManager> call, String phase) {
+		boolean result;
+		try {
+			result = lifecycleCalls.callAll(call);
+		} catch (PlayerCalls.PlayerCallException e) {
+			logger.error("{} of the players failed.", phase, e);
+			result = false;
+		}
+		if (logger.isDebugEnabled()) {
+			for (int number = 1; number < playerManagers.length; number++) {
+				if (lifecycleCalls.isCalled(number)) {
+					logger.debug("{} of {} was {}.", phase, playerManagers[number].getPlayerIdentity(),
+							lifecycleCalls.getResult(number) ? "successful" : "unsuccessful");
+				}
+			}
+		}
+		return result;
+	}
+
 }
@@ -0,0 +1,171 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size histogram of non-negative long values (like elapsed
+ * nanoseconds). The values are counted in logarithmic buckets: every power of
+ * two is split into four buckets, so the percentiles are accurate to 25%,
+ * and the whole range of long fits into 248 buckets. Recording a value does
+ * not allocate, so the histograms can be used on the hot paths. The object is
+ * not thread safe.
+ */
+public class Histogram {
+
+	/**
+	 * The number of buckets every power of two is split into, as bits.
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+
+	private long count = 0;
+
+	private long sum = 0;
+
+	private long min = Long.MAX_VALUE;
+
+	private long max = 0;
+
+	/**
+	 * Record a value.
+	 * @param value The value to record. Negative values are recorded as 0.
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		++counts[bucket(value)];
+		++count;
+		sum += value;
+		if (value < min) {
+			min = value;
+		}
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * Add all the values of the other histogram to this one.
+	 * @param other The histogram to add.
+	 */
+	public void merge(Histogram other) {
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			counts[bucket] += other.counts[bucket];
+		}
+		count += other.count;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * Forget all the recorded values.
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	/**
+	 * @return The smallest recorded value, or 0 if nothing was recorded.
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * Get an approximate percentile of the recorded values.
+	 * @param percentile The percentile, between 0 and 100.
+	 * @return The upper end of the bucket containing the percentile (but not
+	 * more than the maximum), or 0 if nothing was recorded.
+	 */
+	public long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Math.min(max, upperBound(bucket));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Get the bucket of a value: the values below {@link #SUB_BUCKETS} have
+	 * their own buckets, the others are bucketed by their highest bit and the
+	 * next {@link #SUB_BUCKET_BITS} bits.
+	 */
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Get the largest value that falls into the bucket.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+		return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * Summary of the histogram, assuming the values are nanoseconds.
+	 * @return The count, the mean, some percentiles and the maximum in
+	 * microseconds.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%10d %12.2f %12.2f %12.2f %12.2f %12.2f", count, getMean() / 1e3,
+				getPercentile(50) / 1e3, getPercentile(90) / 1e3, getPercentile(99) / 1e3, getMax() / 1e3);
+	}
+
+}
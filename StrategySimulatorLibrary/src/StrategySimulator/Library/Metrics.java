@@ -0,0 +1,100 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library;
+
+/**
+ * Timing of the phases of the simulation, one {@link Histogram} of elapsed
+ * nanoseconds per {@link Phase}. The {@link GameLogic} records the time of
+ * its wrappers, and every {@link PlayerManager} records the time spent in
+ * the calls to its {@link Player}, and the time lost waiting for the calls
+ * that ran out of their time budget. The object is not thread safe.
+ */
+public class Metrics {
+
+	/**
+	 * The phases of the simulation.
+	 */
+	public enum Phase {
+		RESET,
+		INITIALISE,
+		STEP,
+		FINALISE,
+		/**
+		 * The calls to the players that were timed out, see {@link
+		 * PlayerManager#callPlayer(java.util.concurrent.Callable)}.
+		 */
+		TIMEOUT
+	}
+
+	private static final Phase[] phases = Phase.values();
+
+	private final Histogram[] histograms = new Histogram[phases.length];
+
+	public Metrics() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new Histogram();
+		}
+	}
+
+	/**
+	 * Record the elapsed time of a phase.
+	 * @param phase The phase.
+	 * @param nanos The elapsed time in nanoseconds.
+	 */
+	public void record(Phase phase, long nanos) {
+		histograms[phase.ordinal()].record(nanos);
+	}
+
+	/**
+	 * Get the {@link Histogram} of a phase.
+	 * @param phase The phase.
+	 * @return The recorded times of the phase, in nanoseconds.
+	 */
+	public Histogram get(Phase phase) {
+		return histograms[phase.ordinal()];
+	}
+
+	/**
+	 * Add all the recorded times of the other metrics to these.
+	 * @param other The metrics to add.
+	 */
+	public void merge(Metrics other) {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i].merge(other.histograms[i]);
+		}
+	}
+
+	/**
+	 * Forget all the recorded times.
+	 */
+	public void reset() {
+		for (Histogram histogram : histograms) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * A table of the phases, with times in microseconds.
+	 * @return The table, with a header line.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-10s %10s %12s %12s %12s %12s %12s", "Phase", "Count", "Mean (us)", "p50 (us)", "p90 (us)", "p99 (us)", "Max (us)"));
+		for (Phase phase : phases) {
+			builder.append('\n').append(String.format("%-10s ", phase)).append(get(phase));
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,292 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calls all the {@link PlayerManager}s of a game at once, for example to step
+ * all the players of a simultaneous-move game in a round. With a parallelism
+ * above one, the calls are forked into a {@link ForkJoinPool} (shared by all
+ * the games with the same parallelism), otherwise they are made one after
+ * another on the calling thread. {@link #callAll(Call)} returns only when all
+ * the calls are done, so the game can resolve the round right after it.
+ * <p>
+ * The results (and the exceptions) of the calls are kept by the number of
+ * the {@link PlayerManager}s, so they can be processed in the same order
+ * whatever the order of the calls was. The arrays are reused for every call,
+ * so an object should only be used by its game. In fail-fast mode the calls
+ * not started yet are skipped after the first failure (see {@link
+ * #setFailFast(boolean)}).
+ * @param <M> The type of the {@link PlayerManager}s of the game.
+ */
+public class PlayerCalls<M extends PlayerManager> {
+
+	/**
+	 * A call to a {@link PlayerManager}.
+	 * @param <M> The type of the {@link PlayerManager}s.
+	 */
+	public interface Call<M extends PlayerManager> {
+
+		/**
+		 * @param playerManager The {@link PlayerManager} to call.
+		 * @return True on success, false otherwise.
+		 */
+		public boolean call(M playerManager);
+
+	}
+
+	/**
+	 * Calls {@link PlayerManager#resetPlayer()}.
+	 */
+	public static final Call<PlayerManager> RESET = new Call<PlayerManager>() {
+		@Override
+		public boolean call(PlayerManager playerManager) {
+			return playerManager.resetPlayer();
+		}
+	};
+
+	/**
+	 * Calls {@link PlayerManager#initialisePlayer()}.
+	 */
+	public static final Call<PlayerManager> INITIALISE = new Call<PlayerManager>() {
+		@Override
+		public boolean call(PlayerManager playerManager) {
+			return playerManager.initialisePlayer();
+		}
+	};
+
+	/**
+	 * Calls {@link PlayerManager#finalisePlayer()}.
+	 */
+	public static final Call<PlayerManager> FINALISE = new Call<PlayerManager>() {
+		@Override
+		public boolean call(PlayerManager playerManager) {
+			return playerManager.finalisePlayer();
+		}
+	};
+
+	/**
+	 * Thrown by {@link #callAll(Call)} after all the calls are done, if any
+	 * of them threw an exception. The first exception is the cause, and the
+	 * rest are added as suppressed exceptions in the order of the players.
+	 */
+	public static class PlayerCallException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private PlayerCallException(String message, Throwable cause) {
+			super(message, cause);
+		}
+
+	}
+
+	/**
+	 * The pools by their parallelism.
+	 */
+	private static final ConcurrentMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
+
+	private final M[] playerManagers;
+
+	private final boolean[] results;
+
+	private final RuntimeException[] failures;
+
+	private final boolean[] called;
+
+	private int parallelism = 1;
+
+	private boolean failFast = false;
+
+	/**
+	 * Set by the first failed call in fail-fast mode.
+	 */
+	private volatile boolean failed = false;
+
+	/**
+	 * The number of the players called by a task of the pool at least.
+	 */
+	private int chunk = 1;
+
+	private Call<? super M> call = null;
+
+	/**
+	 * A range of the players, split until it is small enough.
+	 */
+	private class CallTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+
+		private final int to;
+
+		private CallTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= chunk) {
+				callRange(from, to);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new CallTask(from, middle), new CallTask(middle, to));
+			}
+		}
+
+	}
+
+	/**
+	 * Create the calls of a game.
+	 * @param playerManagers The {@link PlayerManager}s of the game, starting
+	 * with the index 1 (see {@link GameLogic#playerManagers}).
+	 */
+	public PlayerCalls(M[] playerManagers) {
+		this.playerManagers = playerManagers;
+		this.results = new boolean[playerManagers.length];
+		this.failures = new RuntimeException[playerManagers.length];
+		this.called = new boolean[playerManagers.length];
+	}
+
+	/**
+	 * @return The number of the players called at once.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * Set the number of the players called at once.
+	 * @param parallelism The number of the threads calling the players, 0
+	 * for the number of the processors, 1 to call them on the calling
+	 * thread.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			parallelism = Runtime.getRuntime().availableProcessors();
+		}
+		this.parallelism = parallelism;
+		// A few tasks per thread, so the threads can balance the calls
+		this.chunk = Math.max(1, (playerManagers.length - 1) / (parallelism * 4));
+	}
+
+	/**
+	 * Set the fail-fast mode: after a call returns false (or throws an
+	 * exception), the calls that are not started yet are skipped, and their
+	 * result is false. Off by default.
+	 * @param failFast True to skip the rest of the calls after a failure.
+	 */
+	public void setFailFast(boolean failFast) {
+		this.failFast = failFast;
+	}
+
+	/**
+	 * Call all the {@link PlayerManager}s, and wait for all the calls.
+	 * @param call The call.
+	 * @return True if all the calls returned true.
+	 * @throws PlayerCallException If any of the calls threw an exception.
+	 */
+	public boolean callAll(Call<? super M> call) throws PlayerCallException {
+		this.call = call;
+		this.failed = false;
+		int players = playerManagers.length - 1;
+		if (parallelism <= 1 || players <= 1) {
+			callRange(1, playerManagers.length);
+		} else {
+			getPool(parallelism).invoke(new CallTask(1, playerManagers.length));
+		}
+		this.call = null;
+		boolean result = true;
+		PlayerCallException exception = null;
+		for (int number = 1; number < playerManagers.length; number++) {
+			result &= results[number];
+			if (failures[number] != null) {
+				if (exception == null) {
+					exception = new PlayerCallException("The call to player " + playerManagers[number].getPlayerIdentity() + " failed.", failures[number]);
+				} else {
+					// The first failure is the cause, the rest are suppressed
+					exception.addSuppressed(failures[number]);
+				}
+			}
+		}
+		if (exception != null) {
+			throw exception;
+		}
+		return result;
+	}
+
+	/**
+	 * @param number The number of the {@link PlayerManager}.
+	 * @return The result of the last call to the {@link PlayerManager}.
+	 */
+	public boolean getResult(int number) {
+		return results[number];
+	}
+
+	/**
+	 * @param number The number of the {@link PlayerManager}.
+	 * @return False if the last call to the {@link PlayerManager} was skipped
+	 * in fail-fast mode.
+	 */
+	public boolean isCalled(int number) {
+		return called[number];
+	}
+
+	/**
+	 * @param number The number of the {@link PlayerManager}.
+	 * @return The exception thrown by the last call to the {@link
+	 * PlayerManager}, or null.
+	 */
+	public RuntimeException getFailure(int number) {
+		return failures[number];
+	}
+
+	private void callRange(int from, int to) {
+		for (int number = from; number < to; number++) {
+			results[number] = false;
+			failures[number] = null;
+			called[number] = !(failFast && failed);
+			if (!called[number]) {
+				continue;
+			}
+			try {
+				results[number] = call.call(playerManagers[number]);
+			} catch (RuntimeException e) {
+				failures[number] = e;
+			}
+			if (failFast && !results[number]) {
+				failed = true;
+			}
+		}
+	}
+
+	private static ForkJoinPool getPool(int parallelism) {
+		ForkJoinPool pool = pools.get(parallelism);
+		if (pool == null) {
+			ForkJoinPool created = new ForkJoinPool(parallelism);
+			pool = pools.putIfAbsent(parallelism, created);
+			if (pool == null) {
+				pool = created;
+			} else {
+				created.shutdown();
+			}
+		}
+		return pool;
+	}
+
+}
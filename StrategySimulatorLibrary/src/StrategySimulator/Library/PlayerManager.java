@@ -16,12 +16,55 @@ import hu.hgj.improvedconfiguration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Abstract implementation of the {@link PlayerManager} class, that provides
  * basic functionality towards the {@link Player} and the {@link GameLogic}.
  */
 public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 
+	/**
+	 * What happens to a player, whose call ran out of its time budget.
+	 */
+	public enum TimeoutAction {
+		/**
+		 * The player loses the game.
+		 */
+		FORFEIT,
+		/**
+		 * The game makes a default move instead of the player.
+		 */
+		MOVE
+	}
+
+	/**
+	 * The threads running the calls of the players that have a time budget.
+	 * The threads are daemons, so a hung player can not keep the simulator
+	 * running. A hung call keeps its thread, and the next calls get new
+	 * threads.
+	 */
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger threads = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "player-call-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	});
+
 	/**
 	 * The {@link Logger} for the object.
 	 */
@@ -30,7 +73,7 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	/**
 	 * The {@link GameLogic} this PlayerManager belongs to.
 	 */
-	protected GameLogic superGameLogic;
+	protected GameLogic<?> superGameLogic;
 
 	/**
 	 * The {@link Player}, that is managed by this {@link PlayerManager}
@@ -47,6 +90,121 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	 */
 	public final Configuration configuration;
 
+	/**
+	 * The time spent in the calls to the {@link Player}. Implementations
+	 * should make their custom calls (like stepping the player) through
+	 * {@link #callPlayer(Callable)}, that records them in the {@link
+	 * Metrics.Phase#STEP} phase.
+	 */
+	protected final Metrics metrics = new Metrics();
+
+	/**
+	 * The cached identity of the player, see {@link #getPlayerIdentity()}.
+	 */
+	private String playerIdentity = null;
+
+	/**
+	 * The time budget of a call to the player in nanoseconds, or 0 for no
+	 * limit ('timeout.move' in milliseconds).
+	 */
+	private long moveTimeout = 0;
+
+	/**
+	 * The time budget of all the calls to the player in a game in
+	 * nanoseconds, or 0 for no limit ('timeout.game' in milliseconds).
+	 */
+	private long gameTimeout = 0;
+
+	/**
+	 * The deadline of a reset, an initialisation or a finalisation of the
+	 * player in nanoseconds, or 0 for no limit ('timeout.lifecycle' in
+	 * milliseconds). A player running out of it fails the call.
+	 */
+	private long lifecycleTimeout = 0;
+
+	private TimeoutAction timeoutAction = TimeoutAction.FORFEIT;
+
+	/**
+	 * The time used by the calls to the player in the current game.
+	 */
+	private long gameTime = 0;
+
+	/**
+	 * The last call that was timed out, and may still be running.
+	 */
+	private TrackedCall<?> timedOutCall = null;
+
+	private boolean timedOut = false;
+
+	/**
+	 * The lifecycle calls to the player, see {@link #callLifecycle(Callable,
+	 * Metrics.Phase)}.
+	 */
+	private final Callable<Boolean> resetCall = new Callable<Boolean>() {
+		@Override
+		public Boolean call() {
+			return superPlayer.reset();
+		}
+	};
+	private final Callable<Boolean> initialiseCall = new Callable<Boolean>() {
+		@Override
+		public Boolean call() {
+			return superPlayer.initialise();
+		}
+	};
+	private final Callable<Boolean> finaliseCall = new Callable<Boolean>() {
+		@Override
+		public Boolean call() {
+			return superPlayer.finalise();
+		}
+	};
+
+	/**
+	 * A call to the player run on the {@link #executor}, that tells whether
+	 * the player is still running it. A cancelled {@link Future} is done at
+	 * once, even if the player goes on with the call (a CPU bound player may
+	 * well ignore the interrupt), so the call tracks this itself.
+	 * @param <T> The type of the result of the call.
+	 */
+	private static final class TrackedCall<T> implements Callable<T> {
+
+		private final Callable<T> call;
+
+		private final Future<T> future;
+
+		private volatile boolean started = false;
+
+		private volatile boolean finished = false;
+
+		/**
+		 * Submit a call to the {@link #executor}.
+		 * @param call The call to the player.
+		 */
+		private TrackedCall(Callable<T> call) {
+			this.call = call;
+			future = executor.submit(this);
+		}
+
+		@Override
+		public T call() throws Exception {
+			started = true;
+			try {
+				return call.call();
+			} finally {
+				finished = true;
+			}
+		}
+
+		/**
+		 * @return True if the player is running the call, or it is waiting
+		 * to be run.
+		 */
+		private boolean isRunning() {
+			return started ? !finished : !future.isDone();
+		}
+
+	}
+
 	/**
 	 * Constructs the {@link PlayerManager} and connects the {@link Player} to
 	 * the game.
@@ -66,7 +224,7 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	 * Set the received GameLogic.
 	 * @param superGameLogic The received GameLogic.
 	 */
-	public void setGameLogic(GameLogic superGameLogic) {
+	public void setGameLogic(GameLogic<?> superGameLogic) {
 		this.superGameLogic = superGameLogic;
 	}
 
@@ -80,11 +238,15 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	}
 
 	/**
-	 * Returns the player's name, with its ID.
+	 * Returns the player's name, with its ID. The identity is built only once,
+	 * as it is used in many log messages.
 	 * @return {@link #playerID}:{@link #getPlayerName()}
 	 */
 	public String getPlayerIdentity() {
-		return playerID + ":" + getPlayerName();
+		if (playerIdentity == null) {
+			playerIdentity = playerID + ":" + getPlayerName();
+		}
+		return playerIdentity;
 	}
 
 	/**
@@ -96,6 +258,24 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 		return playerID;
 	}
 
+	/**
+	 * Getter for the {@link #configuration} field.
+	 * @return {@link #configuration}
+	 */
+	@Override
+	public Configuration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * Getter for the {@link #metrics}.
+	 * @return The time spent in the calls to the {@link Player}, accumulated
+	 * over all the games since the metrics were last reset.
+	 */
+	public Metrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Calls the {@link Player}'s {@link Player#reset()} method. Should reset
 	 * the {@link Player} through it's mentioned method, and also the {@link
@@ -105,7 +285,22 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	 */
 	public boolean resetPlayer() {
 		logger.debug("StrategySimulator.Library.PlayerManager resetting player.");
-		return superPlayer.reset();
+		moveTimeout = TimeUnit.MILLISECONDS.toNanos(getTimeoutConfiguration("timeout.move"));
+		gameTimeout = TimeUnit.MILLISECONDS.toNanos(getTimeoutConfiguration("timeout.game"));
+		lifecycleTimeout = TimeUnit.MILLISECONDS.toNanos(getTimeoutConfiguration("timeout.lifecycle"));
+		timeoutAction = TimeoutAction.FORFEIT;
+		String action = getConfiguration("timeout.action");
+		if (action != null) {
+			try {
+				timeoutAction = TimeoutAction.valueOf(action.trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				logger.error("Invalid 'timeout.action' '{}', should be 'forfeit' or 'move'.", action);
+				return false;
+			}
+		}
+		gameTime = 0;
+		timedOut = false;
+		return callLifecycle(resetCall, Metrics.Phase.RESET);
 	}
 
 	/**
@@ -118,7 +313,7 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	 */
 	public boolean initialisePlayer() {
 		logger.debug("StrategySimulator.Library.PlayerManager initialising player.");
-		return superPlayer.initialise();
+		return callLifecycle(initialiseCall, Metrics.Phase.INITIALISE);
 	}
 
 	/**
@@ -131,7 +326,202 @@ public abstract class PlayerManager implements PlayerManagerPlayerInterface {
 	 */
 	public boolean finalisePlayer() {
 		logger.debug("StrategySimulator.Library.PlayerManager finalising player.");
-		return superPlayer.finalise();
+		return callLifecycle(finaliseCall, Metrics.Phase.FINALISE);
+	}
+
+	/**
+	 * Getter for the {@link TimeoutAction} of the player ('timeout.action').
+	 * @return What should happen when a call to the player is timed out.
+	 */
+	public TimeoutAction getTimeoutAction() {
+		return timeoutAction;
+	}
+
+	/**
+	 * Tells whether the calls to the player have a time budget ('timeout.move'
+	 * or 'timeout.game'), so {@link #callPlayer(Callable)} runs them on a
+	 * separate thread, that may go on with a call after it was timed out.
+	 * @return True if the calls are limited in time.
+	 */
+	protected boolean hasTimeBudget() {
+		return moveTimeout != 0 || gameTimeout != 0;
+	}
+
+	/**
+	 * Tells whether the last {@link #callPlayer(Callable)} was timed out.
+	 * @return True if the last call ran out of its time budget.
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * Call the {@link Player} within its time budget, and record the time of
+	 * the call in the {@link Metrics.Phase#STEP} phase. Without a time budget
+	 * the call is made on the current thread. Otherwise it is run on a
+	 * separate thread, and if it does not return in time (or the time budget
+	 * of the game is used up, or a previously timed out call is still
+	 * running), the call is interrupted, {@link #isTimedOut()} is set, and
+	 * the time lost is recorded in the {@link Metrics.Phase#TIMEOUT} phase.
+	 * The implementation then should act according to {@link
+	 * #getTimeoutAction()}. Exceptions thrown by the player are thrown on.
+	 * @param call The call to the player.
+	 * @param <T> The type of the result of the call.
+	 * @return The result of the call, or null if it was timed out.
+	 */
+	protected <T> T callPlayer(Callable<T> call) {
+		timedOut = false;
+		long time = System.nanoTime();
+		T result = null;
+		if (!hasTimeBudget()) {
+			result = callDirectly(call);
+		} else if (isBusy()) {
+			logger.warn("Player {} is still busy with its timed out call.", getPlayerIdentity());
+			timedOut = true;
+		} else {
+			long timeout = moveTimeout == 0 ? Long.MAX_VALUE : moveTimeout;
+			if (gameTimeout != 0) {
+				timeout = Math.min(timeout, gameTimeout - gameTime);
+			}
+			if (timeout <= 0) {
+				logger.info("Player {} used up its time for the game.", getPlayerIdentity());
+				timedOut = true;
+			} else {
+				try {
+					result = callWithin(call, timeout);
+				} catch (TimeoutException e) {
+					timedOut = true;
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - time;
+		gameTime += elapsed;
+		metrics.record(Metrics.Phase.STEP, elapsed);
+		if (timedOut) {
+			metrics.record(Metrics.Phase.TIMEOUT, elapsed);
+			logger.info("Player {} timed out after {} ms.", getPlayerIdentity(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+		}
+		return result;
+	}
+
+	/**
+	 * Make a lifecycle call to the {@link Player} within its deadline
+	 * ('timeout.lifecycle'), and record its time in the given phase. If a
+	 * previously timed out call is still running, the call fails at once.
+	 * Without a deadline the call is made on the current thread. Otherwise it
+	 * is run on a separate thread, and if it does not return in time, the
+	 * call is interrupted and fails. Exceptions thrown by the player are
+	 * thrown on.
+	 * @param call The call to the player.
+	 * @param phase The phase of the call.
+	 * @return The result of the call, or false if it was timed out.
+	 */
+	private boolean callLifecycle(Callable<Boolean> call, Metrics.Phase phase) {
+		long time = System.nanoTime();
+		Boolean result = false;
+		if (isBusy()) {
+			// Even without a deadline of its own, after a timed out step
+			logger.warn("Player {} is still busy with its timed out call.", getPlayerIdentity());
+		} else if (lifecycleTimeout == 0) {
+			result = callDirectly(call);
+		} else {
+			try {
+				result = callWithin(call, lifecycleTimeout);
+			} catch (TimeoutException e) {
+				logger.warn("Player {} missed its deadline of {} ms in the {} phase.", getPlayerIdentity(),
+						TimeUnit.NANOSECONDS.toMillis(lifecycleTimeout), phase);
+			}
+		}
+		metrics.record(phase, System.nanoTime() - time);
+		return result != null && result;
+	}
+
+	/**
+	 * Make a call to the {@link Player} on the current thread. Exceptions
+	 * thrown by the player are thrown on, wrapped if they are checked.
+	 */
+	private static <T> T callDirectly(Callable<T> call) {
+		try {
+			return call.call();
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Make a call to the {@link Player} on a separate thread within a
+	 * deadline. If it does not return in time, it is interrupted, and kept
+	 * as the timed out call until it finishes (see {@link #isBusy()}).
+	 * Exceptions thrown by the player are thrown on.
+	 * @param call The call to the player.
+	 * @param timeout The deadline in nanoseconds.
+	 * @return The result of the call.
+	 * @throws TimeoutException If the call did not return in time.
+	 */
+	private <T> T callWithin(Callable<T> call, long timeout) throws TimeoutException {
+		TrackedCall<T> tracked = new TrackedCall<>(call);
+		Future<T> future = tracked.future;
+		try {
+			return future.get(timeout, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			timedOutCall = tracked;
+			throw e;
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for player " + getPlayerIdentity() + ".", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Tell whether the player is still running a timed out call, so it can
+	 * not be called again: its state is not meant to be used by two threads.
+	 * @return True if the last timed out call is still running.
+	 */
+	private boolean isBusy() {
+		if (timedOutCall != null && !timedOutCall.isRunning()) {
+			timedOutCall = null;
+		}
+		return timedOutCall != null;
+	}
+
+	/**
+	 * Get a configuration entry of the player, or the game's entry, if the
+	 * player does not have it.
+	 */
+	private String getConfiguration(String key) {
+		String value = configuration.get(key);
+		if (value == null && superGameLogic != null) {
+			value = superGameLogic.configuration.get(key);
+		}
+		return value;
+	}
+
+	/**
+	 * Get a time budget from the configuration.
+	 * @return The time budget in milliseconds, or 0 if there is no valid one.
+	 */
+	private long getTimeoutConfiguration(String key) {
+		String value = getConfiguration(key);
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Math.max(0, Long.parseLong(value.trim()));
+		} catch (NumberFormatException e) {
+			logger.error("Invalid '{}' '{}', should be a number of milliseconds.", key, value);
+			return 0;
+		}
 	}
 
 }
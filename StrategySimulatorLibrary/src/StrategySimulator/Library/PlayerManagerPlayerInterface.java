@@ -12,6 +12,8 @@
 
 package StrategySimulator.Library;
 
+import hu.hgj.improvedconfiguration.Configuration;
+
 /**
  * This is the interface of the {@link PlayerManager} provided to the {@link
  * Player}. Everything that a {@link Player} can access should be listed here.
@@ -25,4 +27,11 @@ public interface PlayerManagerPlayerInterface {
 	 */
 	public long getPlayerID();
 
+	/**
+	 * Get your configuration: the entries of the game configuration file
+	 * starting with 'player.N.', where N is your entry number.
+	 * @return Your configuration.
+	 */
+	public Configuration getConfiguration();
+
 }
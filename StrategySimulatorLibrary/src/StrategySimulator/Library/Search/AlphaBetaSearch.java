@@ -0,0 +1,553 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Iterative deepening alpha-beta (negamax) search of two-player games, with
+ * the sides numbered 1 and 2.
+ * <ul>
+ * <li>The searched positions are stored in a {@link TranspositionTable}, by
+ * the hash of the {@link GameState}.</li>
+ * <li>The moves are ordered by the best move of the position in the table,
+ * the killer moves of the ply, the history of the cutoffs of the move, and
+ * the optional {@link MoveOrdering} of the game.</li>
+ * <li>The leaves are evaluated by the {@link Evaluator} of the game.</li>
+ * <li>Every search is deeper and deeper, until the budget runs out. The
+ * budget is hard: the search is aborted, and the best move of the last (or
+ * the aborted) iteration is returned.</li>
+ * <li>With more than one thread, the helper threads search copies of the
+ * position at the same time (at every other depth), and share the table
+ * with the thread of the search (lazy SMP). The move is always the one
+ * found by the thread of the search.</li>
+ * </ul>
+ * The engine reuses its buffers from search to search, so it should be used
+ * by one player.
+ * @param <S> The positions of the game.
+ */
+public class AlphaBetaSearch<S extends GameState> implements SearchEngine<S> {
+
+	/**
+	 * The score of a won position, less the number of the plies to the win.
+	 */
+	public static final int WIN = 1000000;
+
+	/**
+	 * The scores above this (or below its negative) are wins (or losses).
+	 */
+	public static final int WON = WIN - 1000;
+
+	public static final int MAX_DEPTH = 64;
+
+	private static final int INFINITY = WIN + 1;
+
+	/**
+	 * The ordering bonus of the moves of the table, above all, and of the
+	 * killer moves.
+	 */
+	private static final int TABLE_MOVE = 1 << 30;
+	private static final int KILLER_FIRST = 1 << 24;
+	private static final int KILLER_SECOND = 1 << 23;
+
+	/**
+	 * The history scores are halved when one reaches this.
+	 */
+	private static final int HISTORY_LIMIT = 1 << 15;
+
+	private static final Logger logger = LoggerFactory.getLogger(AlphaBetaSearch.class);
+
+	/**
+	 * The helper threads of the searches, shared by all the engines.
+	 */
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger threads = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "alpha-beta-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	});
+
+	private final Evaluator<? super S> evaluator;
+
+	private final TranspositionTable table;
+
+	private MoveOrdering<? super S> ordering = null;
+
+	private long timeBudget = 0;
+
+	private long nodeBudget = 0;
+
+	private int maxDepth = MAX_DEPTH;
+
+	private int threads = 1;
+
+	private Worker[] workers = null;
+
+	private Future<?>[] futures = null;
+
+	//
+	// The current search, read by all the threads
+	//
+
+	private long deadline = 0;
+
+	private final AtomicLong sharedNodes = new AtomicLong();
+
+	private volatile boolean stopped = false;
+
+	//
+	// The results
+	//
+
+	private int depth = 0;
+
+	private int score = 0;
+
+	private long nodes = 0;
+
+	private long searched = 0;
+
+	private long searchTime = 0;
+
+	/**
+	 * A searching thread, with its own buffers.
+	 */
+	private final class Worker implements Runnable {
+
+		private final int number;
+
+		private final int maxMoves;
+
+		private S state = null;
+
+		/**
+		 * The moves and their ordering scores by the ply.
+		 */
+		private final int[][] moves;
+		private final int[][] orders;
+
+		private final int[][] killers;
+
+		/**
+		 * The history scores of the moves, indexed by the side and the move.
+		 */
+		private final int[][] history;
+
+		private long nodes = 0;
+
+		/**
+		 * The number of the nodes of all the threads, when it was last read.
+		 */
+		private long seenNodes = 0;
+
+		private boolean aborted = false;
+
+		/**
+		 * The best move of the current iteration at the root.
+		 */
+		private int rootMove = GameState.NO_MOVE;
+
+		private int depth = 0;
+
+		private int score = 0;
+
+		private Worker(int number, int maxMoves) {
+			this.number = number;
+			this.maxMoves = maxMoves;
+			moves = new int[maxDepth + 1][maxMoves];
+			orders = new int[maxDepth + 1][maxMoves];
+			killers = new int[maxDepth + 1][2];
+			history = new int[3][maxMoves];
+		}
+
+		@Override
+		public void run() {
+			try {
+				iterate();
+			} catch (RuntimeException e) {
+				logger.error("A search thread failed.", e);
+			}
+		}
+
+		/**
+		 * Search deeper and deeper, until the budget runs out.
+		 * @return The best move.
+		 */
+		private int iterate() {
+			nodes = 0;
+			seenNodes = 0;
+			aborted = false;
+			depth = 0;
+			score = 0;
+			for (int[] plyKillers : killers) {
+				Arrays.fill(plyKillers, GameState.NO_MOVE);
+			}
+			for (int[] sideHistory : history) {
+				for (int move = 0; move < maxMoves; move++) {
+					sideHistory[move] >>= 1;
+				}
+			}
+			int bestMove = GameState.NO_MOVE;
+			// The helpers search every other depth
+			for (int iteration = 1 + (number & 1); iteration <= maxDepth; iteration++) {
+				rootMove = GameState.NO_MOVE;
+				int iterationScore = search(iteration, -INFINITY, INFINITY, 0);
+				if (aborted) {
+					// The moves searched first are the best of the last iteration
+					if (rootMove != GameState.NO_MOVE) {
+						bestMove = rootMove;
+					}
+					break;
+				}
+				bestMove = rootMove;
+				depth = iteration;
+				score = iterationScore;
+				if (score >= WON || score <= -WON) {
+					break;
+				}
+			}
+			if (bestMove == GameState.NO_MOVE) {
+				int count = generateMoves(0, state.getSideToMove(), GameState.NO_MOVE);
+				bestMove = count > 0 ? nextMove(0, 0, count) : GameState.NO_MOVE;
+			}
+			return bestMove;
+		}
+
+		/**
+		 * Search a position.
+		 * @param remaining The remaining depth.
+		 * @param alpha The lower bound of the interesting scores.
+		 * @param beta The upper bound of the interesting scores.
+		 * @param ply The distance from the root.
+		 * @return The score of the position for the side to move, or 0 if the
+		 * search was aborted.
+		 */
+		private int search(int remaining, int alpha, int beta, int ply) {
+			++nodes;
+			if ((nodes & 1023) == 0) {
+				seenNodes = sharedNodes.addAndGet(1024);
+				if (stopped || (deadline != 0 && System.nanoTime() - deadline >= 0)) {
+					aborted = true;
+				}
+			}
+			if (nodeBudget > 0 && seenNodes + (nodes & 1023) >= nodeBudget) {
+				aborted = true;
+			}
+			if (aborted) {
+				return 0;
+			}
+			int side = state.getSideToMove();
+			long key = state.getHash();
+			int tableMove = GameState.NO_MOVE;
+			long entry = table.probe(key);
+			if (entry != 0) {
+				tableMove = TranspositionTable.getMove(entry);
+				if (ply > 0 && TranspositionTable.getDepth(entry) >= remaining) {
+					int tableScore = fromTable(TranspositionTable.getScore(entry), ply);
+					int bound = TranspositionTable.getBound(entry);
+					if (bound == TranspositionTable.EXACT
+							|| (bound == TranspositionTable.LOWER && tableScore >= beta)
+							|| (bound == TranspositionTable.UPPER && tableScore <= alpha)) {
+						return tableScore;
+					}
+				}
+			}
+			if (remaining == 0) {
+				return evaluator.evaluate(state, side);
+			}
+			int count = generateMoves(ply, side, tableMove);
+			int originalAlpha = alpha;
+			int best = -INFINITY;
+			int bestMove = GameState.NO_MOVE;
+			for (int i = 0; i < count; i++) {
+				int move = nextMove(ply, i, count);
+				state.make(move);
+				int winner = state.getWinner();
+				int moveScore;
+				if (winner == 0) {
+					moveScore = -search(remaining - 1, -beta, -alpha, ply + 1);
+				} else if (winner == GameState.DRAW) {
+					moveScore = 0;
+				} else {
+					moveScore = winner == side ? WIN - ply - 1 : -(WIN - ply - 1);
+				}
+				state.unmake();
+				if (aborted) {
+					return 0;
+				}
+				if (moveScore > best) {
+					best = moveScore;
+					bestMove = move;
+					if (ply == 0) {
+						rootMove = move;
+					}
+					if (moveScore > alpha) {
+						alpha = moveScore;
+						if (alpha >= beta) {
+							addCutoff(move, ply, side, remaining);
+							break;
+						}
+					}
+				}
+			}
+			if (bestMove == GameState.NO_MOVE) {
+				// No moves, but not over either
+				return 0;
+			}
+			int bound = best <= originalAlpha ? TranspositionTable.UPPER
+					: best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+			table.store(key, TranspositionTable.entry(toTable(best, ply), bestMove, remaining, bound));
+			return best;
+		}
+
+		/**
+		 * Collect the moves of the position, with their ordering scores.
+		 * @return The number of the moves.
+		 */
+		private int generateMoves(int ply, int side, int tableMove) {
+			int[] plyMoves = moves[ply];
+			int[] plyOrders = orders[ply];
+			int[] plyKillers = killers[ply];
+			int[] sideHistory = history[side];
+			int count = state.generateMoves(plyMoves);
+			for (int i = 0; i < count; i++) {
+				int move = plyMoves[i];
+				if (move == tableMove) {
+					plyOrders[i] = TABLE_MOVE;
+				} else {
+					int order = sideHistory[move];
+					if (ordering != null) {
+						order += ordering.scoreMove(state, move);
+					}
+					if (move == plyKillers[0]) {
+						order += KILLER_FIRST;
+					} else if (move == plyKillers[1]) {
+						order += KILLER_SECOND;
+					}
+					plyOrders[i] = order;
+				}
+			}
+			return count;
+		}
+
+		/**
+		 * Pick the next best ordered move, so the moves after a cutoff are
+		 * not sorted at all.
+		 */
+		private int nextMove(int ply, int next, int count) {
+			int[] plyMoves = moves[ply];
+			int[] plyOrders = orders[ply];
+			int best = next;
+			for (int i = next + 1; i < count; i++) {
+				if (plyOrders[i] > plyOrders[best]) {
+					best = i;
+				}
+			}
+			int move = plyMoves[best];
+			plyMoves[best] = plyMoves[next];
+			plyOrders[best] = plyOrders[next];
+			plyMoves[next] = move;
+			plyOrders[next] = 0;
+			return move;
+		}
+
+		private void addCutoff(int move, int ply, int side, int remaining) {
+			int[] plyKillers = killers[ply];
+			if (plyKillers[0] != move) {
+				plyKillers[1] = plyKillers[0];
+				plyKillers[0] = move;
+			}
+			int[] sideHistory = history[side];
+			sideHistory[move] += remaining * remaining;
+			if (sideHistory[move] >= HISTORY_LIMIT) {
+				for (int[] otherHistory : history) {
+					for (int other = 0; other < maxMoves; other++) {
+						otherHistory[other] >>= 1;
+					}
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Create an engine.
+	 * @param evaluator The evaluation of the leaves.
+	 * @param table The table of the searched positions, can be shared by
+	 * many engines of the same game.
+	 */
+	public AlphaBetaSearch(Evaluator<? super S> evaluator, TranspositionTable table) {
+		this.evaluator = evaluator;
+		this.table = table;
+	}
+
+	/**
+	 * @param ordering The ordering of the moves after the move of the table
+	 * and the killer moves, or null.
+	 */
+	public void setMoveOrdering(MoveOrdering<? super S> ordering) {
+		this.ordering = ordering;
+	}
+
+	/**
+	 * @param milliseconds The time budget of a search, 0 for no limit.
+	 */
+	public void setTimeBudget(long milliseconds) {
+		this.timeBudget = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+	}
+
+	/**
+	 * @param nodes The node budget of a search (of all the threads), 0 for no
+	 * limit.
+	 */
+	public void setNodeBudget(long nodes) {
+		this.nodeBudget = nodes;
+	}
+
+	/**
+	 * @param maxDepth The maximal depth of a search in plies, from 1 to
+	 * {@link #MAX_DEPTH}.
+	 */
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = Math.min(MAX_DEPTH, Math.max(1, maxDepth));
+	}
+
+	/**
+	 * @param threads The number of the threads of a search, 0 for the number
+	 * of the processors.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @throws IllegalArgumentException If the game has more moves than the
+	 * {@link TranspositionTable} can store ({@link
+	 * TranspositionTable#MAX_MOVES}).
+	 */
+	@Override
+	public int search(S state) {
+		long start = System.nanoTime();
+		int maxMoves = state.getMaxMoves();
+		if (maxMoves > TranspositionTable.MAX_MOVES) {
+			throw new IllegalArgumentException("The game has more than " + TranspositionTable.MAX_MOVES + " moves.");
+		}
+		if (workers == null || workers.length != threads || workers[0].maxMoves != maxMoves
+				|| workers[0].moves.length < maxDepth + 1) {
+			// An array of the generic workers can only be created with a wildcard
+			@SuppressWarnings("unchecked")
+			Worker[] created = (Worker[]) new AlphaBetaSearch<?>.Worker[threads];
+			workers = created;
+			for (int i = 0; i < threads; i++) {
+				workers[i] = new Worker(i, maxMoves);
+			}
+			futures = new Future<?>[threads];
+		}
+		deadline = timeBudget > 0 ? start + timeBudget : 0;
+		sharedNodes.set(0);
+		stopped = false;
+		// The helpers start after the fields above are set
+		for (int i = 1; i < threads; i++) {
+			workers[i].state = copy(state);
+			futures[i] = executor.submit(workers[i]);
+		}
+		workers[0].state = state;
+		int move = workers[0].iterate();
+		stopped = true;
+		for (int i = 1; i < threads; i++) {
+			try {
+				futures[i].get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				logger.error("A search thread failed.", e.getCause());
+			}
+			futures[i] = null;
+		}
+		nodes = 0;
+		for (Worker worker : workers) {
+			nodes += worker.nodes;
+			worker.state = null;
+		}
+		depth = workers[0].depth;
+		score = workers[0].score;
+		long time = System.nanoTime() - start;
+		searched += nodes;
+		searchTime += time;
+		return move;
+	}
+
+	/**
+	 * @return The depth of the last completed iteration of the last search.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return The score of the last completed iteration of the last search.
+	 */
+	public int getScore() {
+		return score;
+	}
+
+	/**
+	 * @return The number of the nodes of the last search, of all the
+	 * threads.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	@Override
+	public long getSearched() {
+		return searched;
+	}
+
+	@Override
+	public long getSearchTime() {
+		return searchTime;
+	}
+
+	@SuppressWarnings("unchecked")
+	private S copy(S state) {
+		return (S) state.copy();
+	}
+
+	private static int toTable(int score, int ply) {
+		return score >= WON ? score + ply : score <= -WON ? score - ply : score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		return score >= WON ? score - ply : score <= -WON ? score + ply : score;
+	}
+
+}
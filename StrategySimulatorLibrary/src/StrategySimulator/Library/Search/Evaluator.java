@@ -0,0 +1,32 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * The static evaluation of the positions of a game, for the leaves of the
+ * searches.
+ * @param <S> The positions of the game.
+ */
+public interface Evaluator<S extends GameState> {
+
+	/**
+	 * Evaluate a position, that is not over yet.
+	 * @param state The position.
+	 * @param side The side to evaluate the position for.
+	 * @return The score of the position for the side, positive if it is
+	 * better for the side. Should be well within plus or minus {@link
+	 * AlphaBetaSearch#WON}.
+	 */
+	public int evaluate(S state, int side);
+
+}
@@ -0,0 +1,83 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * A position of a game, that the searches can make moves on, and take them
+ * back. The moves are numbers from 0 to {@link #getMaxMoves()} - 1, and the
+ * sides are numbered from 1, so the searches can keep their tables in
+ * arrays. The implementations should not allocate in {@link #make(int)},
+ * {@link #unmake()} and {@link #generateMoves(int[])}, as these are called
+ * millions of times in a second.
+ */
+public interface GameState {
+
+	/**
+	 * The result of a game ended in a draw (see {@link #getWinner()}).
+	 */
+	public static final int DRAW = -1;
+
+	/**
+	 * No move (see {@link SearchEngine#search(GameState)}).
+	 */
+	public static final int NO_MOVE = -1;
+
+	/**
+	 * @return The number of the different moves of the game, which is also
+	 * the most moves a position can have.
+	 */
+	public int getMaxMoves();
+
+	/**
+	 * @return The side making the next move.
+	 */
+	public int getSideToMove();
+
+	/**
+	 * @return The side that won, {@link #DRAW}, or 0 if the game goes on.
+	 */
+	public int getWinner();
+
+	/**
+	 * Collect the moves worth searching in the position.
+	 * @param moves The array to collect the moves into, at least {@link
+	 * #getMaxMoves()} long.
+	 * @return The number of the moves, 0 if the game is over.
+	 */
+	public int generateMoves(int[] moves);
+
+	/**
+	 * Make a move of the side to move.
+	 * @param move The move.
+	 */
+	public void make(int move);
+
+	/**
+	 * Take back the last move.
+	 */
+	public void unmake();
+
+	/**
+	 * @return The hash of the position (including the side to move), the
+	 * same for the same positions, for the transposition tables.
+	 */
+	public long getHash();
+
+	/**
+	 * Copy the position for another thread of a search.
+	 * @return A new position of the same class, that can be searched
+	 * independently.
+	 */
+	public GameState copy();
+
+}
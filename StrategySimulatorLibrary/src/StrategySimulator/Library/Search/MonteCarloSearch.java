@@ -0,0 +1,669 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Monte Carlo tree search of two-player games, with the sides numbered 1 and
+ * 2: the moves are tried by random games (playouts), and the tree of the
+ * positions grows towards the moves that win the most (UCT).
+ * <ul>
+ * <li>The search is tree-parallel: the threads share one tree, and every
+ * thread adds a virtual loss to the nodes it selects until its playout is
+ * done, so the other threads turn to other moves meanwhile. The nodes are
+ * updated with atomic operations, without locks.</li>
+ * <li>Every thread plays on its own copy of the position, making the moves
+ * of its playout and taking them back, without allocating. The moves of the
+ * tree are made only when a node is expanded, or a random game is
+ * played.</li>
+ * <li>The playouts pick uniformly random moves of {@link
+ * GameState#generateMoves(int[])}, or play the {@link RandomGame} of the
+ * position if it implements it (and the playouts are not cut off). With a playout depth, they are cut off
+ * after so many moves, and won by the side the {@link Evaluator} prefers (or
+ * drawn, without an evaluator).</li>
+ * <li>A move ending the game with the win of its side is always
+ * selected.</li>
+ * <li>With {@link #setReuse(boolean)}, the tree of a search is kept, and the
+ * next search goes on with the subtree of its position, if it was searched
+ * (found by its {@link GameState#getHash()} at most two moves below the
+ * root).</li>
+ * </ul>
+ * The engine reuses its buffers from search to search, so it should be used
+ * by one player. Without reuse, the tree is built anew for every search.
+ * @param <S> The positions of the game.
+ */
+public class MonteCarloSearch<S extends GameState> implements SearchEngine<S> {
+
+	private static final Logger logger = LoggerFactory.getLogger(MonteCarloSearch.class);
+
+	/**
+	 * The helper threads of the searches, shared by all the engines.
+	 */
+	private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger threads = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "monte-carlo-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	});
+
+	/**
+	 * A node of the tree: a move, and the statistics of the playouts through
+	 * it.
+	 */
+	static final class Node {
+
+		private static final AtomicIntegerFieldUpdater<Node> VISITS =
+				AtomicIntegerFieldUpdater.newUpdater(Node.class, "visits");
+
+		private static final AtomicLongFieldUpdater<Node> SCORE =
+				AtomicLongFieldUpdater.newUpdater(Node.class, "score");
+
+		private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN =
+				AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class, "children");
+
+		/**
+		 * The move, or {@link GameState#NO_MOVE} for the root.
+		 */
+		final int move;
+
+		/**
+		 * The side making the move.
+		 */
+		final int mover;
+
+		/**
+		 * The result of the game after the move, 0 if it goes on.
+		 */
+		final int winner;
+
+		/**
+		 * The hash of the position after the move.
+		 */
+		final long hash;
+
+		/**
+		 * The playouts through the node, including the virtual losses of the
+		 * playouts in progress.
+		 */
+		volatile int visits = 0;
+
+		/**
+		 * The results of the playouts for the mover in half points: 2 for a
+		 * win, 1 for a draw.
+		 */
+		volatile long score = 0;
+
+		/**
+		 * The nodes of the moves after the move, or null if the node is not
+		 * expanded yet.
+		 */
+		volatile Node[] children = null;
+
+		Node(int move, int mover, int winner, long hash) {
+			this.move = move;
+			this.mover = mover;
+			this.winner = winner;
+			this.hash = hash;
+		}
+
+	}
+
+	/**
+	 * A searching thread, with its own copy of the position.
+	 */
+	private final class Worker implements Runnable {
+
+		private final int maxMoves;
+
+		private S state = null;
+
+		private final int[] moves;
+
+		/**
+		 * The nodes of the current playout, from the root. Their moves are
+		 * made on the position only while a node is expanded, or a random
+		 * game is played.
+		 */
+		private final Node[] path;
+
+		private long random;
+
+		private long playouts = 0;
+
+		private Worker(int maxMoves, long seed) {
+			this.maxMoves = maxMoves;
+			moves = new int[maxMoves];
+			path = new Node[maxMoves + 1];
+			random = seed != 0 ? seed : 1;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (claimPlayout()) {
+					playout();
+				}
+			} catch (RuntimeException e) {
+				logger.error("A search thread failed.", e);
+			}
+		}
+
+		/**
+		 * Select a path of the tree with UCT, expand its leaf if it was
+		 * visited enough, play a random game from its position, and update
+		 * the nodes of the path with the result.
+		 */
+		private void playout() {
+			Node node = root;
+			int depth = 0;
+			path[0] = node;
+			Node.VISITS.addAndGet(node, virtualLoss);
+			int winner;
+			while (true) {
+				winner = node.winner;
+				if (winner != 0) {
+					break;
+				}
+				Node[] children = node.children;
+				if (children == null) {
+					// The virtual loss of this playout counts as one visit
+					if (node.visits - virtualLoss + 1 < expansion) {
+						winner = simulate(depth);
+						break;
+					}
+					makePath(depth);
+					children = expand(node);
+					unmakePath(depth);
+				}
+				if (children.length == 0) {
+					winner = GameState.DRAW;
+					break;
+				}
+				node = select(children, node.visits);
+				Node.VISITS.addAndGet(node, virtualLoss);
+				path[++depth] = node;
+			}
+			for (; depth >= 0; depth--) {
+				Node visited = path[depth];
+				path[depth] = null;
+				long result = winner == GameState.DRAW ? 1 : winner == visited.mover ? 2 : 0;
+				if (result != 0) {
+					Node.SCORE.addAndGet(visited, result);
+				}
+				if (virtualLoss != 1) {
+					Node.VISITS.addAndGet(visited, 1 - virtualLoss);
+				}
+			}
+			++playouts;
+		}
+
+		/**
+		 * @return The child with a winning move, or the best child by UCT.
+		 * The children never visited are taken first, in their (random)
+		 * order.
+		 */
+		private Node select(Node[] children, int visits) {
+			for (Node child : children) {
+				if (child.winner == child.mover) {
+					return child;
+				}
+			}
+			double logVisits = Math.log(visits + 1);
+			Node best = children[0];
+			double bestValue = -1;
+			for (Node child : children) {
+				int childVisits = child.visits;
+				if (childVisits == 0) {
+					return child;
+				}
+				double value = child.score / (2.0 * childVisits) + exploration * Math.sqrt(logVisits / childVisits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Expand a node with the moves of its position, in a random order. If
+		 * another thread expanded the node meanwhile, its children are kept.
+		 */
+		private Node[] expand(Node node) {
+			int count = state.generateMoves(moves);
+			int mover = state.getSideToMove();
+			Node[] children = new Node[count];
+			for (int i = count - 1; i >= 0; i--) {
+				int swap = nextInt(i + 1);
+				int move = moves[swap];
+				moves[swap] = moves[i];
+				state.make(move);
+				children[i] = new Node(move, mover, state.getWinner(), state.getHash());
+				state.unmake();
+			}
+			if (!Node.CHILDREN.compareAndSet(node, null, children)) {
+				children = node.children;
+			}
+			return children;
+		}
+
+		/**
+		 * Make the moves of the path on the position.
+		 * @param depth The depth of the last node of the path.
+		 */
+		private void makePath(int depth) {
+			for (int i = 1; i <= depth; i++) {
+				state.make(path[i].move);
+			}
+		}
+
+		/**
+		 * Take back the moves of the path.
+		 * @param depth The depth of the last node of the path.
+		 */
+		private void unmakePath(int depth) {
+			for (int i = 0; i < depth; i++) {
+				state.unmake();
+			}
+		}
+
+		/**
+		 * Play random moves after the moves of the path until the game is
+		 * over, or the playout is cut off, then take them back.
+		 * @param depth The depth of the last node of the path.
+		 * @return The winner, or {@link GameState#DRAW}.
+		 */
+		private int simulate(int depth) {
+			if (playoutDepth == 0 && state instanceof RandomGame) {
+				for (int i = 1; i <= depth; i++) {
+					moves[i - 1] = path[i].move;
+				}
+				return ((RandomGame) state).playRandomGame(moves, depth, nextLong());
+			}
+			makePath(depth);
+			int made = 0;
+			int winner;
+			while (true) {
+				winner = state.getWinner();
+				if (winner != 0) {
+					break;
+				} else if (playoutDepth > 0 && made >= playoutDepth) {
+					winner = cutOff();
+					break;
+				}
+				int count = state.generateMoves(moves);
+				if (count == 0) {
+					winner = GameState.DRAW;
+					break;
+				}
+				state.make(moves[nextInt(count)]);
+				++made;
+			}
+			for (; made > 0; made--) {
+				state.unmake();
+			}
+			unmakePath(depth);
+			return winner;
+		}
+
+		/**
+		 * @return The side preferred by the evaluator, or {@link
+		 * GameState#DRAW}.
+		 */
+		private int cutOff() {
+			if (evaluator == null) {
+				return GameState.DRAW;
+			}
+			int side = state.getSideToMove();
+			int score = evaluator.evaluate(state, side);
+			return score > 0 ? side : score < 0 ? 3 - side : GameState.DRAW;
+		}
+
+		/**
+		 * @return A random number from 0 to bound - 1 (xorshift64*).
+		 */
+		private int nextInt(int bound) {
+			return (int) ((nextLong() >>> 33) * bound >>> 31);
+		}
+
+		/**
+		 * @return A random number, never 0 (xorshift64*).
+		 */
+		private long nextLong() {
+			random ^= random >>> 12;
+			random ^= random << 25;
+			random ^= random >>> 27;
+			return random * 0x2545F4914F6CDD1DL;
+		}
+
+	}
+
+	private final Evaluator<? super S> evaluator;
+
+	private long timeBudget = 0;
+
+	private long playoutBudget = 0;
+
+	private int threads = 1;
+
+	private double exploration = 1.0;
+
+	private int virtualLoss = 1;
+
+	private int expansion = 2;
+
+	private int playoutDepth = 0;
+
+	private boolean reuse = false;
+
+	/**
+	 * The root of the last search, kept for the next one.
+	 */
+	private Node kept = null;
+
+	private Worker[] workers = null;
+
+	private Future<?>[] futures = null;
+
+	//
+	// The current search, read by all the threads
+	//
+
+	private volatile Node root = null;
+
+	private long deadline = 0;
+
+	private final AtomicLong claimedPlayouts = new AtomicLong();
+
+	private volatile boolean stopped = false;
+
+	//
+	// The results
+	//
+
+	private long playouts = 0;
+
+	private int visits = 0;
+
+	private long score = 0;
+
+	private long searched = 0;
+
+	private long searchTime = 0;
+
+	/**
+	 * Create an engine.
+	 * @param evaluator The evaluation of the positions of the playouts cut
+	 * off (see {@link #setPlayoutDepth(int)}), or null.
+	 */
+	public MonteCarloSearch(Evaluator<? super S> evaluator) {
+		this.evaluator = evaluator;
+	}
+
+	/**
+	 * @param milliseconds The time budget of a search, 0 for no limit.
+	 */
+	public void setTimeBudget(long milliseconds) {
+		this.timeBudget = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+	}
+
+	/**
+	 * @param playouts The playout budget of a search (of all the threads), 0
+	 * for no limit.
+	 */
+	public void setPlayoutBudget(long playouts) {
+		this.playoutBudget = playouts;
+	}
+
+	/**
+	 * @param threads The number of the threads of a search, 0 for the number
+	 * of the processors.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @param exploration The exploration constant of UCT (defaults to 1.0).
+	 */
+	public void setExploration(double exploration) {
+		this.exploration = exploration;
+	}
+
+	/**
+	 * @param virtualLoss The number of the lost playouts added to a node
+	 * selected by a thread, until its playout is done, at least 1 (defaults
+	 * to 1).
+	 */
+	public void setVirtualLoss(int virtualLoss) {
+		this.virtualLoss = Math.max(1, virtualLoss);
+	}
+
+	/**
+	 * @param expansion The number of the visits of a node, before it is
+	 * expanded, at least 1 (defaults to 2).
+	 */
+	public void setExpansion(int expansion) {
+		this.expansion = Math.max(1, expansion);
+	}
+
+	/**
+	 * @param playoutDepth The number of the random moves of a playout, before
+	 * it is cut off, 0 for no limit (defaults to 0).
+	 */
+	public void setPlayoutDepth(int playoutDepth) {
+		this.playoutDepth = Math.max(0, playoutDepth);
+	}
+
+	/**
+	 * @param reuse Keep the tree of a search for the next one (defaults to
+	 * false).
+	 */
+	public void setReuse(boolean reuse) {
+		this.reuse = reuse;
+		if (!reuse) {
+			kept = null;
+		}
+	}
+
+	/**
+	 * Forget the tree kept for the next search, for example at the end of a
+	 * game.
+	 */
+	public void clearTree() {
+		kept = null;
+	}
+
+	/**
+	 * Search the best move.
+	 * @return The winning move, the most visited move, or {@link
+	 * GameState#NO_MOVE} if the game is over or there are no moves.
+	 */
+	@Override
+	public int search(S state) {
+		long start = System.nanoTime();
+		if (state.getWinner() != 0) {
+			return GameState.NO_MOVE;
+		}
+		int maxMoves = state.getMaxMoves();
+		if (workers == null || workers.length != threads || workers[0].maxMoves != maxMoves) {
+			// An array of the generic workers can only be created with a wildcard
+			@SuppressWarnings("unchecked")
+			Worker[] created = (Worker[]) new MonteCarloSearch<?>.Worker[threads];
+			workers = created;
+			long seed = System.nanoTime() ^ System.identityHashCode(this);
+			for (int i = 0; i < threads; i++) {
+				workers[i] = new Worker(maxMoves, seed + i * 0x9E3779B97F4A7C15L);
+			}
+			futures = new Future<?>[threads];
+		}
+		long before = 0;
+		for (Worker worker : workers) {
+			before += worker.playouts;
+		}
+		deadline = timeBudget > 0 ? start + timeBudget : 0;
+		claimedPlayouts.set(0);
+		stopped = false;
+		long hash = state.getHash();
+		Node searchRoot = find(kept, hash);
+		kept = null;
+		if (searchRoot == null) {
+			searchRoot = new Node(GameState.NO_MOVE, 0, 0, hash);
+		}
+		// The root is expanded first, so there are moves to choose from
+		workers[0].state = state;
+		Node[] children = searchRoot.children;
+		if (children == null) {
+			children = workers[0].expand(searchRoot);
+		}
+		if (children.length == 0) {
+			workers[0].state = null;
+			return GameState.NO_MOVE;
+		}
+		root = searchRoot;
+		// The helpers start after the fields above are set
+		for (int i = 1; i < threads; i++) {
+			workers[i].state = copy(state);
+			futures[i] = executor.submit(workers[i]);
+		}
+		workers[0].run();
+		for (int i = 1; i < threads; i++) {
+			try {
+				futures[i].get();
+			} catch (InterruptedException e) {
+				stopped = true;
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				logger.error("A search thread failed.", e.getCause());
+			}
+			futures[i] = null;
+		}
+		Node best = null;
+		for (Node child : children) {
+			if (child.winner == child.mover) {
+				best = child;
+				break;
+			} else if (best == null || child.visits > best.visits) {
+				best = child;
+			}
+		}
+		root = null;
+		if (reuse) {
+			kept = searchRoot;
+		}
+		playouts = -before;
+		for (Worker worker : workers) {
+			playouts += worker.playouts;
+			worker.state = null;
+		}
+		visits = best.visits;
+		score = best.score;
+		searched += playouts;
+		searchTime += System.nanoTime() - start;
+		return best.move;
+	}
+
+	/**
+	 * @return The number of the playouts of the last search, of all the
+	 * threads.
+	 */
+	public long getPlayouts() {
+		return playouts;
+	}
+
+	/**
+	 * @return The share of the playouts won through the move of the last
+	 * search in percents, a draw counting as half a win.
+	 */
+	public int getWinRate() {
+		return visits > 0 ? (int) (score * 50 / visits) : 0;
+	}
+
+	/**
+	 * @return The number of the playouts through the move of the last
+	 * search.
+	 */
+	public int getVisits() {
+		return visits;
+	}
+
+	@Override
+	public long getSearched() {
+		return searched;
+	}
+
+	@Override
+	public long getSearchTime() {
+		return searchTime;
+	}
+
+	/**
+	 * Find the node of a position in the tree kept from the last search: its
+	 * root, or a node a move of each side below it.
+	 * @return The node, or null if the position was not searched.
+	 */
+	private static Node find(Node node, long hash) {
+		if (node == null || node.hash == hash) {
+			return node;
+		}
+		Node[] children = node.children;
+		if (children != null) {
+			for (Node child : children) {
+				Node[] grandchildren = child.children;
+				if (grandchildren != null) {
+					for (Node grandchild : grandchildren) {
+						if (grandchild.hash == hash) {
+							return grandchild;
+						}
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return True if a thread may start another playout.
+	 */
+	private boolean claimPlayout() {
+		return !stopped
+				&& (deadline == 0 || System.nanoTime() - deadline < 0)
+				&& (playoutBudget == 0 || claimedPlayouts.getAndIncrement() < playoutBudget);
+	}
+
+	@SuppressWarnings("unchecked")
+	private S copy(S state) {
+		return (S) state.copy();
+	}
+
+}
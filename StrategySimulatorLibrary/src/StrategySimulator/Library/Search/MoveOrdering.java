@@ -0,0 +1,32 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * Optional ordering of the moves for the {@link AlphaBetaSearch}, after the
+ * moves of the transposition table and the killer moves.
+ * @param <S> The positions of the game.
+ */
+public interface MoveOrdering<S extends GameState> {
+
+	/**
+	 * Score a move of the side to move, without making it.
+	 * @param state The position.
+	 * @param move The move.
+	 * @return The score of the move, the moves with the higher scores are
+	 * searched first. Should be between 0 and 2^28, the moves scored above
+	 * 2^24 are searched before the killer moves.
+	 */
+	public int scoreMove(S state, int move);
+
+}
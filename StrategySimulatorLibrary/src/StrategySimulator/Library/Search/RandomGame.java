@@ -0,0 +1,34 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * Optional fast random games of a {@link GameState}, for the playouts of the
+ * {@link MonteCarloSearch}. A position keeping search tables up to date with
+ * every move (like an evaluation, or a move index) can play a random game on
+ * a primitive copy of its own instead, which is much cheaper than making and
+ * taking back every move of the game.
+ */
+public interface RandomGame {
+
+	/**
+	 * Make some moves from the position, then play random legal moves until
+	 * the game is over. The position is the same after the game as before.
+	 * @param moves The moves to make first, none of them ending the game.
+	 * @param count The number of the moves to make first.
+	 * @param seed The seed of the random moves of the game, never 0.
+	 * @return The side that won, or {@link GameState#DRAW}.
+	 */
+	public int playRandomGame(int[] moves, int count, long seed);
+
+}
@@ -0,0 +1,41 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * A search of the best move in a position.
+ * @param <S> The positions of the game.
+ */
+public interface SearchEngine<S extends GameState> {
+
+	/**
+	 * Search the best move of the side to move within the budget of the
+	 * engine. The position is the same after the search as before.
+	 * @param state The position.
+	 * @return The best move found, or {@link GameState#NO_MOVE} if there are
+	 * no moves.
+	 */
+	public int search(S state);
+
+	/**
+	 * @return The number of the positions (or the playouts) searched by all
+	 * the searches so far.
+	 */
+	public long getSearched();
+
+	/**
+	 * @return The time of all the searches so far, in nanoseconds.
+	 */
+	public long getSearchTime();
+
+}
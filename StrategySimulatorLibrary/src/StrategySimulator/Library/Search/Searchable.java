@@ -0,0 +1,30 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+/**
+ * Implemented by the {@link StrategySimulator.Library.GameLogic}s that hand
+ * out their positions to the players for searching.
+ * @param <S> The positions of the game.
+ */
+public interface Searchable<S extends GameState> {
+
+	/**
+	 * Create a copy of the current position of the game for a player, that
+	 * can be searched without touching the game.
+	 * @param player The number of the player.
+	 * @return The position.
+	 */
+	public S createState(int player);
+
+}
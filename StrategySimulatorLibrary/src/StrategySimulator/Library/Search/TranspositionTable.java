@@ -0,0 +1,139 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+package StrategySimulator.Library.Search;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A fixed-size table of the searched positions, without locks, so it can be
+ * shared by searches running on many threads. An entry is two longs: the
+ * data (the score, the best move, the depth and the bound of the score) and
+ * the key XORed with the data. An entry torn by two threads writing it at
+ * once does not match its key any more, so it is simply missed.
+ */
+public final class TranspositionTable {
+
+	/**
+	 * The bounds of the stored scores.
+	 */
+	public static final int EXACT = 1;
+	public static final int LOWER = 2;
+	public static final int UPPER = 3;
+
+	/**
+	 * The most moves of a game the table can store, as a move is stored in 16
+	 * bits (with {@link GameState#NO_MOVE}).
+	 */
+	public static final int MAX_MOVES = 0xFFFF;
+
+	/**
+	 * The shared tables, by their size.
+	 */
+	private static final ConcurrentMap<Integer, TranspositionTable> tables = new ConcurrentHashMap<>();
+
+	private final long[] keys;
+
+	private final long[] data;
+
+	private final int mask;
+
+	/**
+	 * Create a table.
+	 * @param bits The size of the table as a power of two (from 1 to 30), an
+	 * entry takes 16 bytes.
+	 */
+	public TranspositionTable(int bits) {
+		if (bits < 1 || bits > 30) {
+			throw new IllegalArgumentException("The size of the table should be between 2^1 and 2^30.");
+		}
+		keys = new long[1 << bits];
+		data = new long[1 << bits];
+		mask = (1 << bits) - 1;
+	}
+
+	/**
+	 * Get the table of the given size shared by all the searches.
+	 * @param bits The size of the table as a power of two.
+	 * @return The shared table.
+	 */
+	public static TranspositionTable getShared(int bits) {
+		TranspositionTable table = tables.get(bits);
+		if (table == null) {
+			TranspositionTable created = new TranspositionTable(bits);
+			table = tables.putIfAbsent(bits, created);
+			if (table == null) {
+				table = created;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @param key The key of the position.
+	 * @return The data of the position, or 0 if it is not in the table.
+	 */
+	public long probe(long key) {
+		int slot = (int) key & mask;
+		long entry = data[slot];
+		return (keys[slot] ^ entry) == key ? entry : 0;
+	}
+
+	/**
+	 * Store a position, unless the same position is stored deeper.
+	 * @param key The key of the position.
+	 * @param entry The data of the position (see {@link #entry(int, int, int,
+	 * int)}).
+	 */
+	public void store(long key, long entry) {
+		int slot = (int) key & mask;
+		long old = data[slot];
+		if ((keys[slot] ^ old) == key && getDepth(old) > getDepth(entry)) {
+			return;
+		}
+		data[slot] = entry;
+		keys[slot] = key ^ entry;
+	}
+
+	/**
+	 * Pack the data of a position.
+	 * @param score The score.
+	 * @param move The best move, from -1 to 65534, any other move is stored
+	 * as {@link GameState#NO_MOVE}.
+	 * @param depth The depth of the search, from 0 to 255.
+	 * @param bound The bound of the score: {@link #EXACT}, {@link #LOWER} or
+	 * {@link #UPPER}.
+	 * @return The data, never 0.
+	 */
+	public static long entry(int score, int move, int depth, int bound) {
+		long stored = move >= GameState.NO_MOVE && move < MAX_MOVES ? move + 1 : 0;
+		return (score & 0xFFFFFFFFL) | stored << 32 | (long) (depth & 0xFF) << 48 | (long) bound << 56;
+	}
+
+	public static int getScore(long entry) {
+		return (int) entry;
+	}
+
+	public static int getMove(long entry) {
+		return (int) (entry >>> 32 & 0xFFFF) - 1;
+	}
+
+	public static int getDepth(long entry) {
+		return (int) (entry >>> 48 & 0xFF);
+	}
+
+	public static int getBound(long entry) {
+		return (int) (entry >>> 56);
+	}
+
+}
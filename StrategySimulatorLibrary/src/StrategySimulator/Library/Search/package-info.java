@@ -0,0 +1,23 @@
+//
+// StrategySimulator 1.6.0
+//
+// This file is part of the StrategySimulator framework, licensed under a
+// Creative Commons Attribution-ShareAlike 3.0 Unported License.
+// To view a copy of this license, see the LICENCE file, or visit
+// http://creativecommons.org/licenses/by-nc-sa/4.0/
+//
+// For more information, visit the project's website at GitHub:
+// https://github.com/hgj/StrategySimulator
+//
+
+/**
+ * Generic game tree searches for the players of any game built on the
+ * framework. A game describes its positions as a
+ * {@link StrategySimulator.Library.Search.GameState} (and its
+ * {@link StrategySimulator.Library.GameLogic} can hand them out to the
+ * players as a {@link StrategySimulator.Library.Search.Searchable}), and
+ * gets an alpha-beta and a Monte Carlo tree search engine on top of it, with
+ * its own {@link StrategySimulator.Library.Search.Evaluator}.
+ * @version 1.6.0
+ */
+package StrategySimulator.Library.Search;